@@ -0,0 +1,47 @@
+package jpastudy.querydsl.study.bench;
+
+import jpastudy.querydsl.study.StudyApplication;
+import jpastudy.querydsl.study.service.MemberBulkLoader;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    // 벤치마크마다 독립된 in-memory H2 를 띄우고 SQL 로깅은 끈다.
+    static ConfigurableApplicationContext start(String name, String... overrides) {
+        return start(WebApplicationType.NONE, name, overrides);
+    }
+
+    static ConfigurableApplicationContext start(WebApplicationType webType, String name,
+        String... overrides) {
+        List<String> args = new ArrayList<>(Arrays.asList(
+            "--spring.profiles.active=bench",
+            "--spring.datasource.url=jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1",
+            "--spring.jpa.hibernate.ddl-auto=create",
+            "--decorator.datasource.p6spy.enable-logging=false",
+            "--logging.level.org.hibernate.SQL=warn",
+            "--logging.level.root=warn",
+            "--server.port=0"
+        ));
+        args.addAll(Arrays.asList(overrides));
+        return new SpringApplicationBuilder(StudyApplication.class)
+            .web(webType)
+            .run(args.toArray(new String[0]));
+    }
+
+    static void seed(ConfigurableApplicationContext context, int teams, int members) {
+        List<String> teamNames = new ArrayList<>(teams);
+        for (int i = 0; i < teams; i++) {
+            teamNames.add("team" + i);
+        }
+        context.getBean(MemberBulkLoader.class).load(teamNames, members);
+    }
+}
@@ -0,0 +1,77 @@
+package jpastudy.querydsl.study.bench;
+
+import jpastudy.querydsl.study.dto.MemberSearchCondition;
+import jpastudy.querydsl.study.dto.MemberTeamDto;
+import jpastudy.querydsl.study.repo.MemberJpaRepo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ColumnarIndexBenchmark {
+
+    @Param({"100000"})
+    int members;
+
+    @Param({"10"})
+    int teams;
+
+    @Param({"false", "true"})
+    boolean columnarIndex;
+
+    ConfigurableApplicationContext context;
+    MemberJpaRepo memberJpaRepo;
+    MemberSearchCondition teamAndAge;
+    MemberSearchCondition username;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("columnar",
+            "--member.search.index.enabled=" + columnarIndex);
+        BenchmarkContext.seed(context, teams, members);
+        memberJpaRepo = context.getBean(MemberJpaRepo.class);
+
+        teamAndAge = new MemberSearchCondition();
+        teamAndAge.setTeamName("team1");
+        teamAndAge.setAgeGoe(20);
+        teamAndAge.setAgeLoe(22);
+        username = new MemberSearchCondition();
+        username.setUsername("member" + members / 2);
+        // 색인 적재는 측정에서 뺀다.
+        memberJpaRepo.search(username);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchTeamAndAge() {
+        return memberJpaRepo.search(teamAndAge);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchUsername() {
+        return memberJpaRepo.search(username);
+    }
+}
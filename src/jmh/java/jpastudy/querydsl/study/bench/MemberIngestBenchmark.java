@@ -0,0 +1,81 @@
+package jpastudy.querydsl.study.bench;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jpastudy.querydsl.study.entity.Member;
+import jpastudy.querydsl.study.entity.Team;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+
+import static jpastudy.querydsl.study.entity.QTeam.team;
+
+// 큰 team 에 회원 한 명을 넣는 트랜잭션 비용, team 크기와 무관해야 한다.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemberIngestBenchmark {
+
+    @Param({"1000", "500000"})
+    int teamSize;
+
+    ConfigurableApplicationContext context;
+    EntityManager em;
+    TransactionTemplate tx;
+    Long teamId;
+    int sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("ingest");
+        BenchmarkContext.seed(context, 1, teamSize);
+        em = context.getBean(EntityManager.class);
+        tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        teamId = tx.execute(status -> context.getBean(JPAQueryFactory.class)
+            .select(team.id)
+            .from(team)
+            .fetchFirst());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Long joinManagedTeam() {
+        return tx.execute(status -> {
+            Member member = new Member("ingest" + sequence++, 20, em.find(Team.class, teamId));
+            em.persist(member);
+            return member.getId();
+        });
+    }
+
+    @Benchmark
+    public Long joinTeamReference() {
+        return tx.execute(status -> {
+            Member member = new Member("ingest" + sequence++, 20,
+                em.getReference(Team.class, teamId));
+            em.persist(member);
+            return member.getId();
+        });
+    }
+}
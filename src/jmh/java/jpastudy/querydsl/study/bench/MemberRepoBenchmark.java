@@ -0,0 +1,93 @@
+package jpastudy.querydsl.study.bench;
+
+import jpastudy.querydsl.study.dto.MemberSearchCondition;
+import jpastudy.querydsl.study.dto.MemberTeamDto;
+import jpastudy.querydsl.study.repo.MemberJpaRepo;
+import jpastudy.querydsl.study.repo.MemberRepo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemberRepoBenchmark {
+
+    @Param({"10000"})
+    int members;
+
+    @Param({"10"})
+    int teams;
+
+    @Param({"0", "500"})
+    int page;
+
+    @Param({"false", "true"})
+    boolean concurrentCount;
+
+    ConfigurableApplicationContext context;
+    MemberJpaRepo memberJpaRepo;
+    MemberRepo memberRepo;
+    MemberSearchCondition condition;
+    PageRequest pageRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // count 캐시가 결과를 가리지 않도록 매번 다시 센다.
+        context = BenchmarkContext.start("repo", "--member.search.count.ttl=0s",
+            "--member.search.count.concurrent=" + concurrentCount);
+        BenchmarkContext.seed(context, teams, members);
+        memberJpaRepo = context.getBean(MemberJpaRepo.class);
+        memberRepo = context.getBean(MemberRepo.class);
+
+        condition = new MemberSearchCondition();
+        condition.setTeamName("team1");
+        condition.setAgeGoe(20);
+        condition.setAgeLoe(40);
+        pageRequest = PageRequest.of(page, 10);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> jpaRepoSearch() {
+        return memberJpaRepo.search(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> jpaRepoSearchByBuilder() {
+        return memberJpaRepo.searchByBuilder(condition);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageSimple() {
+        return memberRepo.searchPageSimple(condition, pageRequest);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageComplex() {
+        return memberRepo.searchPageComplex(condition, pageRequest);
+    }
+}
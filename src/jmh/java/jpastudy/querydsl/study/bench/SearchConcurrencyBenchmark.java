@@ -0,0 +1,79 @@
+package jpastudy.querydsl.study.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// JMH 스레드 하나가 클라이언트 하나다. 동시 접속 수는 -t 로 바꾼다.
+// ./gradlew jmh -PjmhArgs='SearchConcurrencyBenchmark -t 2000'
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(1024)
+@Fork(1)
+public class SearchConcurrencyBenchmark {
+
+    @Param({"10000"})
+    int members;
+
+    ConfigurableApplicationContext context;
+    HttpClient client;
+    HttpRequest syncRequest;
+    HttpRequest asyncRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(WebApplicationType.SERVLET, "concurrency",
+            "--member.search.count.ttl=0s");
+        BenchmarkContext.seed(context, 10, members);
+
+        String base = "http://localhost:"
+            + context.getEnvironment().getProperty("local.server.port");
+        String query = "?teamName=team1&ageGoe=20&size=20";
+        client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+        syncRequest = HttpRequest.newBuilder(URI.create(base + "/v5/members" + query)).build();
+        asyncRequest = HttpRequest.newBuilder(URI.create(base + "/v5/members/async" + query))
+            .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int servletThread() throws IOException, InterruptedException {
+        return client.send(syncRequest, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Benchmark
+    public int offloaded() throws IOException, InterruptedException {
+        return client.send(asyncRequest, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
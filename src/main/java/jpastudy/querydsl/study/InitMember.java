@@ -1,15 +1,13 @@
 package jpastudy.querydsl.study;
 
-import jpastudy.querydsl.study.entity.Member;
-import jpastudy.querydsl.study.entity.Team;
+import jpastudy.querydsl.study.service.MemberBulkLoader;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import javax.annotation.PostConstruct;
-import javax.persistence.EntityManager;
-import javax.persistence.PersistenceContext;
 
 @Profile("local")
 @Component
@@ -26,19 +24,20 @@ public class InitMember {
     @Component
     static class InitMemberService {
 
-        @PersistenceContext
-        EntityManager em;
+        private final MemberBulkLoader memberBulkLoader;
+        private final List<String> teamNames;
+        private final int memberCount;
+
+        InitMemberService(MemberBulkLoader memberBulkLoader,
+            @Value("${init.member.teams:teamA,teamB}") List<String> teamNames,
+            @Value("${init.member.count:100}") int memberCount) {
+            this.memberBulkLoader = memberBulkLoader;
+            this.teamNames = teamNames;
+            this.memberCount = memberCount;
+        }
 
-        @Transactional
         public void init() {
-            Team teamA = new Team("teamA");
-            Team teamB = new Team("teamB");
-            em.persist(teamA);
-            em.persist(teamB);
-            for (int i = 0; i < 100; i++) {
-                Team selectedTeam = i % 2 == 0 ? teamA : teamB;
-                em.persist(new Member("member" + i, i, selectedTeam));
-            }
+            memberBulkLoader.load(teamNames, memberCount);
         }
     }
-}
\ No newline at end of file
+}
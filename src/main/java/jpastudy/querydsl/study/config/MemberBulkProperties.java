@@ -0,0 +1,17 @@
+package jpastudy.querydsl.study.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "member.bulk")
+public class MemberBulkProperties {
+
+    // hibernate.jdbc.batch_size 와 맞춰야 flush 마다 배치가 꽉 찬다. sequence 증가폭도 이 값을 따른다.
+    private int batchSize = 100;
+    private int chunkSize = 10_000;
+    // 벌크 update/delete 한 트랜잭션이 잠그는 최대 행 수
+    private int operationChunkSize = 1_000;
+}
@@ -0,0 +1,45 @@
+package jpastudy.querydsl.study.config;
+
+import jpastudy.querydsl.study.repo.support.SqlStatementRecorder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+// Executor bean 을 직접 등록하면 Boot 의 applicationTaskExecutor 는 만들어지지 않는다.
+// 아래 executor 는 이름으로만 주입받고, @Async 나 MVC Callable 을 쓰게 되면 기본 executor 를 따로 등록해야 한다.
+@Configuration
+@EnableConfigurationProperties({MemberSearchProperties.class, MemberBulkProperties.class})
+public class MemberSearchConfig {
+
+    @Bean
+    @Qualifier("memberCountExecutor")
+    public ThreadPoolTaskExecutor memberCountExecutor(MemberSearchProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getCount().getThreads());
+        executor.setMaxPoolSize(properties.getCount().getThreads());
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("member-count-");
+        // 요청 스레드의 SQL 기록(N+1 검사)에 이 스레드에서 나간 쿼리도 남긴다.
+        executor.setTaskDecorator(SqlStatementRecorder::propagate);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    // 검색 JDBC 호출을 servlet 스레드에서 떼어내는 bounded executor, 큐가 차면 거절한다.
+    @Bean
+    @Qualifier("memberSearchExecutor")
+    public ThreadPoolTaskExecutor memberSearchExecutor(MemberSearchProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getAsync().getThreads());
+        executor.setMaxPoolSize(properties.getAsync().getThreads());
+        executor.setQueueCapacity(properties.getAsync().getQueueCapacity());
+        executor.setThreadNamePrefix("member-search-");
+        executor.setTaskDecorator(SqlStatementRecorder::propagate);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+}
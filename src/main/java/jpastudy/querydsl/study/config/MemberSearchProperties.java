@@ -0,0 +1,86 @@
+package jpastudy.querydsl.study.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "member.search")
+public class MemberSearchProperties {
+
+    private final Count count = new Count();
+    private final Stream stream = new Stream();
+    private final Lookup lookup = new Lookup();
+    private final Async async = new Async();
+    private final Estimate estimate = new Estimate();
+    private final Index index = new Index();
+    private final UsernameIndex usernameIndex = new UsernameIndex();
+
+    @Getter
+    @Setter
+    public static class Count {
+
+        private Duration ttl = Duration.ofSeconds(30);
+        private int maxEntries = 10_000;
+        private boolean concurrent = false;
+        private int threads = 4;
+        // 병렬 count 를 기다리는 최대 시간, 넘기면 요청 스레드에서 직접 센다.
+        private Duration timeout = Duration.ofSeconds(3);
+    }
+
+    @Getter
+    @Setter
+    public static class Stream {
+
+        private int fetchSize = 500;
+        private int clearInterval = 1000;
+    }
+
+    @Getter
+    @Setter
+    public static class Lookup {
+
+        private int chunkSize = 512;
+    }
+
+    @Getter
+    @Setter
+    public static class Async {
+
+        // 커넥션 풀 크기보다 크게 잡아봐야 풀 대기만 늘어난다.
+        private int threads = 10;
+        private int queueCapacity = 1000;
+    }
+
+    @Getter
+    @Setter
+    public static class Estimate {
+
+        private boolean enabled = false;
+        // 추정치가 이 값보다 작으면 정확히 센다.
+        private long threshold = 100_000;
+        private int ageBucketWidth = 5;
+        // 증분 갱신으로 쌓인 오차를 털어내기 위해 이 주기마다 다시 집계한다.
+        private Duration refreshInterval = Duration.ofMinutes(10);
+    }
+
+    @Getter
+    @Setter
+    public static class Index {
+
+        // 켜면 search 를 DB 대신 메모리 색인으로 응답한다.
+        private boolean enabled = false;
+    }
+
+    @Getter
+    @Setter
+    public static class UsernameIndex {
+
+        private boolean enabled = true;
+        // 후보 id 가 이보다 많으면 in 절 대신 like 로 검색한다. 2의 거듭제곱이어야 한다.
+        private int maxCandidates = 1024;
+    }
+}
@@ -0,0 +1,79 @@
+package jpastudy.querydsl.study.config;
+
+import jpastudy.querydsl.study.repo.support.SqlStatementRecorder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+// 요청 스레드와 SqlStatementRecorder.propagate 로 감싼 executor 에서 나간 SQL 을 모양별로 세서
+// 같은 모양이 반복되면 N+1 로 알린다.
+// 비동기 요청(Callable, DeferredResult)은 처리 스레드의 SQL 을 알 수 없으므로 검사하지 않는다.
+@Slf4j
+@RequiredArgsConstructor
+public class NPlusOneDetector extends OncePerRequestFilter {
+
+    private final SqlInspectionProperties properties;
+
+    // 비동기 요청의 응답도 모아 뒀다면 내보내야 하므로 async dispatch 도 거친다.
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+        FilterChain filterChain) throws ServletException, IOException {
+        if (isAsyncDispatch(request)) {
+            filterChain.doFilter(request, response);
+            copyBody(response);
+            return;
+        }
+        // 응답이 커밋된 뒤에는 실패시킬 수 없으므로 실패시킬 때는 본문을 모아 뒀다가 검사 후에 내보낸다.
+        HttpServletResponse target = properties.isFailOnNPlusOne()
+            ? new BufferedResponse(response) : response;
+        Map<String, Integer> repeated;
+        try (SqlStatementRecorder.Recording recording = SqlStatementRecorder.start()) {
+            filterChain.doFilter(request, target);
+            repeated = recording.countByShape().entrySet().stream()
+                .filter(entry -> entry.getValue() >= properties.getRepeatThreshold())
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        }
+        if (isAsyncStarted(request)) {
+            return;
+        }
+        if (!repeated.isEmpty()) {
+            String message = String.format("possible N+1 in %s %s: %s", request.getMethod(),
+                request.getRequestURI(), repeated);
+            if (properties.isFailOnNPlusOne() && !response.isCommitted()) {
+                throw new IllegalStateException(message);
+            }
+            log.warn(message);
+        }
+        copyBody(target);
+    }
+
+    private static void copyBody(HttpServletResponse response) throws IOException {
+        BufferedResponse buffered = WebUtils.getNativeResponse(response, BufferedResponse.class);
+        if (buffered != null) {
+            buffered.copyBodyToResponse();
+        }
+    }
+
+    // 다른 필터가 감싼 ContentCachingResponseWrapper 와 구분한다.
+    private static class BufferedResponse extends ContentCachingResponseWrapper {
+
+        BufferedResponse(HttpServletResponse response) {
+            super(response);
+        }
+    }
+}
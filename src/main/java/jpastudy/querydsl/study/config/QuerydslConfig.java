@@ -0,0 +1,42 @@
+package jpastudy.querydsl.study.config;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jpastudy.querydsl.study.repo.support.CachingJPAQueryFactory;
+import jpastudy.querydsl.study.repo.support.JpqlCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.persistence.EntityManager;
+
+@Configuration
+public class QuerydslConfig {
+
+    @Bean
+    public JpqlCache jpqlCache(@Value("${querydsl.jpql-cache.max-entries:1000}") int maxEntries) {
+        return new JpqlCache(maxEntries);
+    }
+
+    @Bean
+    public JPAQueryFactory jpaQueryFactory(EntityManager em, JpqlCache jpqlCache,
+        @Value("${querydsl.jpql-cache.enabled:true}") boolean enabled) {
+        return enabled ? new CachingJPAQueryFactory(em, jpqlCache) : new JPAQueryFactory(em);
+    }
+
+    @Bean
+    public MeterBinder jpqlCacheMetrics(JpqlCache jpqlCache) {
+        return registry -> {
+            FunctionCounter.builder("querydsl.jpql.cache", jpqlCache, JpqlCache::getHitCount)
+                .tag("result", "hit").register(registry);
+            FunctionCounter.builder("querydsl.jpql.cache", jpqlCache, JpqlCache::getMissCount)
+                .tag("result", "miss").register(registry);
+            FunctionCounter.builder("querydsl.jpql.cache", jpqlCache, JpqlCache::getBypassCount)
+                .tag("result", "bypass").register(registry);
+            Gauge.builder("querydsl.jpql.cache.size", jpqlCache, JpqlCache::size)
+                .register(registry);
+        };
+    }
+}
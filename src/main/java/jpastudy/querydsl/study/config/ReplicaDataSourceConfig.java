@@ -0,0 +1,83 @@
+package jpastudy.querydsl.study.config;
+
+import com.p6spy.engine.spy.P6DataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+
+@Configuration
+@EnableConfigurationProperties(ReplicaDataSourceProperties.class)
+@ConditionalOnProperty(prefix = "datasource.replica", name = "nodes[0].url")
+public class ReplicaDataSourceConfig implements DisposableBean {
+
+    private static final String PRIMARY_HIKARI = "spring.datasource.hikari";
+    private static final String REPLICA_HIKARI = "datasource.replica.hikari";
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    // p6spy 가 바깥에서 감싸면 연결을 바로 꺼내 readOnly 가 정해지기 전에 라우팅되므로
+    // decorator 에서는 제외하고(decorator.datasource.exclude-beans) Lazy 프록시 안쪽에서 감싼다.
+    @Bean
+    public DataSource routingDataSource(DataSourceProperties primaryProperties,
+        ReplicaDataSourceProperties replicaProperties, Environment environment,
+        ObjectProvider<MeterRegistry> meterRegistry,
+        @Value("${decorator.datasource.enabled:true}") boolean p6spy) {
+        Binder binder = Binder.get(environment);
+        DataSource primary = pool("primary", primaryProperties.initializeDataSourceBuilder(),
+            binder, meterRegistry, PRIMARY_HIKARI);
+        List<DataSource> replicas = new ArrayList<>();
+        List<ReplicaDataSourceProperties.Node> nodes = replicaProperties.getNodes();
+        for (int i = 0; i < nodes.size(); i++) {
+            ReplicaDataSourceProperties.Node node = nodes.get(i);
+            replicas.add(pool("replica-" + i, DataSourceBuilder.create()
+                    .driverClassName(primaryProperties.determineDriverClassName())
+                    .url(node.getUrl())
+                    .username(node.getUsername())
+                    .password(node.getPassword()),
+                binder, meterRegistry, PRIMARY_HIKARI, REPLICA_HIKARI));
+        }
+        routingDataSource = new ReplicaRoutingDataSource(primary, replicas,
+            replicaProperties.getSelection(), replicaProperties.getRetryAfter());
+        return new LazyConnectionDataSourceProxy(
+            p6spy ? new P6DataSource(routingDataSource) : routingDataSource);
+    }
+
+    // 풀을 bean 으로 등록하지 않으므로 Boot 가 해주던 hikari 설정 바인딩과 metrics 연결을 여기서 한다.
+    // replica 는 spring.datasource.hikari 를 먼저 받고 datasource.replica.hikari 로 덮어쓴다.
+    private HikariDataSource pool(String poolName, DataSourceBuilder<?> builder, Binder binder,
+        ObjectProvider<MeterRegistry> meterRegistry, String... hikariPrefixes) {
+        HikariDataSource pool = builder.type(HikariDataSource.class).build();
+        for (String prefix : hikariPrefixes) {
+            binder.bind(prefix, Bindable.ofInstance(pool));
+        }
+        pool.setPoolName(poolName);
+        meterRegistry.ifAvailable(registry ->
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+        return pool;
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (routingDataSource != null) {
+            routingDataSource.close();
+        }
+    }
+}
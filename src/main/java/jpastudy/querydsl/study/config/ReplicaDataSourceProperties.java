@@ -0,0 +1,30 @@
+package jpastudy.querydsl.study.config;
+
+import jpastudy.querydsl.study.config.ReplicaRoutingDataSource.Selection;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "datasource.replica")
+public class ReplicaDataSourceProperties {
+
+    private Selection selection = Selection.ROUND_ROBIN;
+    // 연결에 실패한 replica 를 다시 시도하기까지 쉬는 시간
+    private Duration retryAfter = Duration.ofSeconds(30);
+    private List<Node> nodes = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Node {
+
+        private String url;
+        private String username;
+        private String password;
+    }
+}
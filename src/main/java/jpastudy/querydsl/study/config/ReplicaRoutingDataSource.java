@@ -0,0 +1,118 @@
+package jpastudy.querydsl.study.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+
+// 읽기 전용 트랜잭션은 replica 로, 나머지는 primary 로 보낸다.
+// 트랜잭션 시작 시점에 readOnly 여부가 정해져 있도록 LazyConnectionDataSourceProxy 로 감싸서 쓴다.
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    public enum Selection {ROUND_ROBIN, LEAST_LATENCY}
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Selection selection;
+    private final long retryAfterNanos;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas,
+        Selection selection, Duration retryAfter) {
+        this.primary = primary;
+        for (DataSource replica : replicas) {
+            this.replicas.add(new Replica(replica));
+        }
+        this.selection = selection;
+        this.retryAfterNanos = retryAfter.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return primary.getConnection();
+        }
+        return replicaConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return primary.getConnection(username, password);
+        }
+        return replicaConnection();
+    }
+
+    private Connection replicaConnection() throws SQLException {
+        int size = replicas.size();
+        int start = selection == Selection.LEAST_LATENCY
+            ? fastest() : Math.floorMod(next.getAndIncrement(), size);
+        long now = System.nanoTime();
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.downUntil - now > 0) {
+                continue;
+            }
+            try {
+                return replica.connect();
+            } catch (SQLException e) {
+                log.warn("replica unavailable, retry after {}ms: {}", retryAfterNanos / 1_000_000,
+                    e.getMessage());
+                replica.downUntil = System.nanoTime() + retryAfterNanos;
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof Closeable) {
+                ((Closeable) replica.dataSource).close();
+            }
+        }
+        if (primary instanceof Closeable) {
+            ((Closeable) primary).close();
+        }
+    }
+
+    private int fastest() {
+        int fastest = 0;
+        for (int i = 1; i < replicas.size(); i++) {
+            if (replicas.get(i).latencyNanos < replicas.get(fastest).latencyNanos) {
+                fastest = i;
+            }
+        }
+        return fastest;
+    }
+
+    private static class Replica {
+
+        private final DataSource dataSource;
+        private volatile long latencyNanos;
+        private volatile long downUntil = System.nanoTime();
+
+        Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        // 연결 획득 시간의 지수 이동 평균을 지연 시간으로 본다.
+        Connection connect() throws SQLException {
+            long started = System.nanoTime();
+            Connection connection = dataSource.getConnection();
+            long elapsed = System.nanoTime() - started;
+            latencyNanos = latencyNanos == 0 ? elapsed : (latencyNanos * 7 + elapsed) / 8;
+            return connection;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package jpastudy.querydsl.study.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(SqlInspectionProperties.class)
+public class SqlInspectionConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "sql.inspection", name = "detect-n-plus-one",
+        havingValue = "true", matchIfMissing = true)
+    public FilterRegistrationBean<NPlusOneDetector> nPlusOneDetector(
+        SqlInspectionProperties properties) {
+        FilterRegistrationBean<NPlusOneDetector> registration =
+            new FilterRegistrationBean<>(new NPlusOneDetector(properties));
+        registration.addUrlPatterns("/*");
+        return registration;
+    }
+}
@@ -0,0 +1,18 @@
+package jpastudy.querydsl.study.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "sql.inspection")
+public class SqlInspectionProperties {
+
+    private boolean detectNPlusOne = true;
+    // 한 요청에서 같은 모양의 SQL 이 이 횟수 이상 나가면 N+1 로 본다.
+    private int repeatThreshold = 10;
+    // 켜면 경고 대신 요청을 실패시킨다. 테스트에서 회귀를 잡을 때 쓴다.
+    // 실패시키려면 응답이 나가기 전이어야 하므로 응답 본문을 끝까지 메모리에 모아 둔다. 운영에서는 끄고 경고만 남긴다.
+    private boolean failOnNPlusOne = false;
+}
@@ -1,37 +1,131 @@
 package jpastudy.querydsl.study.controller;
 
+import jpastudy.querydsl.study.dto.CursorSlice;
+import jpastudy.querydsl.study.dto.MemberCursor;
 import jpastudy.querydsl.study.dto.MemberSearchCondition;
 import jpastudy.querydsl.study.dto.MemberTeamDto;
 import jpastudy.querydsl.study.repo.MemberJpaRepo;
 import jpastudy.querydsl.study.repo.MemberRepo;
+import jpastudy.querydsl.study.repo.MemberSearchVersions;
+import jpastudy.querydsl.study.service.MemberAsyncSearchService;
+import jpastudy.querydsl.study.service.MemberExportFormat;
+import jpastudy.querydsl.study.service.MemberExportService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import javax.servlet.http.HttpServletResponse;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+    private static final int MAX_SLICE_SIZE = 2000;
+
     private final MemberJpaRepo memberJpaRepo;
 
     private final MemberRepo memberRepo;
 
+    private final MemberExportService memberExportService;
+
+    private final MemberAsyncSearchService memberAsyncSearchService;
+
+    private final MemberSearchVersions memberSearchVersions;
+
     @GetMapping("/v1/members")
     public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
         return memberJpaRepo.search(condition);
     }
 
+    @GetMapping("/v1/members/async")
+    public CompletableFuture<List<MemberTeamDto>> searchMemberV1Async(
+        MemberSearchCondition condition) {
+        return offload(() -> memberAsyncSearchService.search(condition));
+    }
+
+    @GetMapping("/v1/members/stream")
+    public void streamMemberV1(MemberSearchCondition condition,
+        @RequestParam(defaultValue = "ndjson") String format,
+        HttpServletResponse response) throws IOException {
+        MemberExportFormat exportFormat;
+        try {
+            exportFormat = MemberExportFormat.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown format: " + format);
+        }
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        memberExportService.export(condition, exportFormat, response.getOutputStream());
+    }
+
+    // If-None-Match 가 현재 버전과 같으면 쿼리와 직렬화 없이 304 로 끝낸다.
     @GetMapping("/v2/members")
-    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
+    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable,
+        WebRequest request) {
+        if (request.checkNotModified(memberSearchVersions.etag(condition, pageable))) {
+            return null;
+        }
         return memberRepo.searchPageSimple(condition, pageable);
     }
 
     @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
+    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable,
+        WebRequest request) {
+        if (request.checkNotModified(memberSearchVersions.etag(condition, pageable))) {
+            return null;
+        }
         return memberRepo.searchPageComplex(condition, pageable);
     }
+
+    @GetMapping("/v4/members")
+    public CursorSlice<MemberTeamDto> searchMemberV4(MemberSearchCondition condition,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "id") String sort,
+        @RequestParam(defaultValue = "10") int size) {
+        return memberRepo.searchKeyset(condition, toCursor(cursor, sort),
+            Math.max(1, Math.min(size, MAX_SLICE_SIZE)));
+    }
+
+    @GetMapping("/v5/members")
+    public Slice<MemberTeamDto> searchMemberV5(MemberSearchCondition condition, Pageable pageable) {
+        return memberRepo.searchSlice(condition, pageable);
+    }
+
+    @GetMapping("/v5/members/async")
+    public CompletableFuture<Slice<MemberTeamDto>> searchMemberV5Async(
+        MemberSearchCondition condition, Pageable pageable) {
+        return offload(() -> memberAsyncSearchService.searchSlice(condition, pageable));
+    }
+
+    private <T> CompletableFuture<T> offload(Supplier<CompletableFuture<T>> search) {
+        try {
+            return search.get();
+        } catch (TaskRejectedException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                "Member search is saturated", e);
+        }
+    }
+
+    private MemberCursor toCursor(String cursor, String sort) {
+        try {
+            if (cursor != null) {
+                return MemberCursor.decode(cursor);
+            }
+            return MemberCursor.first(MemberCursor.Sort.valueOf(sort.toUpperCase()));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
 }
\ No newline at end of file
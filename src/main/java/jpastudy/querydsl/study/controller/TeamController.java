@@ -0,0 +1,25 @@
+package jpastudy.querydsl.study.controller;
+
+import jpastudy.querydsl.study.dto.TeamStatsDto;
+import jpastudy.querydsl.study.repo.TeamStatsRepo;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+    private final TeamStatsRepo teamStatsRepo;
+
+    @GetMapping("/v1/teams/stats")
+    public List<TeamStatsDto> teamStats(@RequestParam(required = false) String teamName) {
+        if (teamName != null) {
+            return teamStatsRepo.findByTeamName(teamName);
+        }
+        return teamStatsRepo.findAll();
+    }
+}
@@ -0,0 +1,64 @@
+package jpastudy.querydsl.study.dto;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+@Getter
+@EqualsAndHashCode
+@ToString
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class MemberCursor {
+
+    public enum Sort {ID, AGE}
+
+    private final Sort sort;
+    private final Integer age;
+    private final Long memberId;
+
+    public static MemberCursor first(Sort sort) {
+        return new MemberCursor(sort, null, null);
+    }
+
+    public static MemberCursor after(Sort sort, MemberTeamDto last) {
+        return new MemberCursor(sort, sort == Sort.AGE ? last.getAge() : null, last.getMemberId());
+    }
+
+    public static MemberCursor decode(String token) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+        String[] parts = raw.split(":");
+        try {
+            if (parts.length == 2 && Sort.ID.name().equals(parts[0])) {
+                return new MemberCursor(Sort.ID, null, Long.valueOf(parts[1]));
+            }
+            if (parts.length == 3 && Sort.AGE.name().equals(parts[0])) {
+                return new MemberCursor(Sort.AGE, Integer.valueOf(parts[1]), Long.valueOf(parts[2]));
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+        throw new IllegalArgumentException("Invalid cursor: " + token);
+    }
+
+    public boolean isFirst() {
+        return memberId == null;
+    }
+
+    public String encode() {
+        String raw = sort == Sort.AGE
+            ? sort.name() + ":" + age + ":" + memberId
+            : sort.name() + ":" + memberId;
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
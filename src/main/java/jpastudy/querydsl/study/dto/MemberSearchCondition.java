@@ -6,6 +6,8 @@ import lombok.Data;
 public class MemberSearchCondition {
 
     private String username;
+    private String usernameContains;
+    private String usernameStartsWith;
     private String teamName;
     private Integer ageGoe;
     private Integer ageLoe;
@@ -0,0 +1,27 @@
+package jpastudy.querydsl.study.entity;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+// sequence 증가폭을 allocationSize 상수 대신 설정으로 정한다.
+// insert 배치 크기와 맞춰두면 배치 하나가 sequence 한 번으로 id 를 다 받는다.
+public class BatchSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String INCREMENT_SIZE = "jpastudy.id.increment_size";
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry)
+        throws MappingException {
+        Object incrementSize = serviceRegistry.getService(ConfigurationService.class)
+            .getSettings().get(INCREMENT_SIZE);
+        if (incrementSize != null) {
+            params.setProperty(INCREMENT_PARAM, incrementSize.toString());
+        }
+        super.configure(type, params, serviceRegistry);
+    }
+}
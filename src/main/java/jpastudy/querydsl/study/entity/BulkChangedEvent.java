@@ -0,0 +1,18 @@
+package jpastudy.querydsl.study.entity;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+
+// 벌크 update/delete 는 엔티티 리스너를 거치지 않으므로 영향받은 id 를 따로 알린다.
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class BulkChangedEvent {
+
+    private final Class<?> entityType;
+    private final List<Long> ids;
+    private final EntityChangedEvent.Type type;
+}
@@ -0,0 +1,58 @@
+package jpastudy.querydsl.study.entity;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+@Component
+@RequiredArgsConstructor
+public class EntityChangeListener {
+
+    private static final ThreadLocal<Boolean> SUPPRESSED = ThreadLocal.withInitial(() -> false);
+
+    private final ApplicationEventPublisher publisher;
+
+    // 대량 적재처럼 행마다 이벤트를 내기엔 너무 많은 작업은 호출자가 끝에 BulkChangedEvent 하나로 알린다.
+    // 엔티티 콜백은 flush 때 불리므로 work 안에서 flush 까지 끝내야 한다.
+    public static void withoutEvents(Runnable work) {
+        boolean previous = SUPPRESSED.get();
+        SUPPRESSED.set(true);
+        try {
+            work.run();
+        } finally {
+            SUPPRESSED.set(previous);
+        }
+    }
+
+    static boolean isSuppressed() {
+        return SUPPRESSED.get();
+    }
+
+    @PostPersist
+    public void postPersist(Object entity) {
+        if (isSuppressed()) {
+            return;
+        }
+        publisher.publishEvent(new EntityChangedEvent(entity, EntityChangedEvent.Type.PERSISTED));
+    }
+
+    @PostUpdate
+    public void postUpdate(Object entity) {
+        if (isSuppressed()) {
+            return;
+        }
+        publisher.publishEvent(new EntityChangedEvent(entity, EntityChangedEvent.Type.UPDATED));
+    }
+
+    @PostRemove
+    public void postRemove(Object entity) {
+        if (isSuppressed()) {
+            return;
+        }
+        publisher.publishEvent(new EntityChangedEvent(entity, EntityChangedEvent.Type.REMOVED));
+    }
+}
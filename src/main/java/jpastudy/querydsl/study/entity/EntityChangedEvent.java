@@ -0,0 +1,16 @@
+package jpastudy.querydsl.study.entity;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class EntityChangedEvent {
+
+    public enum Type {PERSISTED, UPDATED, REMOVED}
+
+    private final Object entity;
+    private final Type type;
+}
@@ -4,26 +4,55 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.PostUpdate;
+import javax.persistence.Table;
+import javax.persistence.Transient;
 
+import static lombok.AccessLevel.NONE;
 import static lombok.AccessLevel.PROTECTED;
 
 @Getter
 @Setter
 @Entity
+@Table(indexes = {
+    @Index(name = "idx_member_username", columnList = "username"),
+    @Index(name = "idx_member_age", columnList = "age"),
+    @Index(name = "idx_member_team_age", columnList = "team_id, age")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@EntityListeners({EntityChangeListener.class, MemberChangeListener.class})
 @NoArgsConstructor(access = PROTECTED)
 @ToString(of = {"id", "username", "age"})
 public class Member {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "member_seq_generator")
+    @GenericGenerator(name = "member_seq_generator",
+        strategy = "jpastudy.querydsl.study.entity.BatchSequenceGenerator",
+        parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "member_seq"),
+            @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "100")
+        })
     @Column(name = "member_id")
     private Long id;
     private String username;
@@ -32,6 +61,12 @@ public class Member {
     @JoinColumn(name = "team_id")
     private Team team;
 
+    // 마지막으로 DB 와 맞춰진 상태, 통계 갱신 시 변경 전 값으로 쓴다.
+    @Transient
+    @Getter(NONE)
+    @Setter(NONE)
+    private MemberState loadedState;
+
     public Member(String username) {
         this.username = username;
     }
@@ -49,8 +84,28 @@ public class Member {
         }
     }
 
+    // team.members 는 mappedBy 쪽 List 라 초기화 전에 add 하면 Hibernate 가 SQL 없이 쌓아뒀다가 로딩할 때 합친다.
+    // remove 는 쌓아두지 않고 컬렉션 전체를 읽으므로 이전 team 의 컬렉션이 메모리에 올라와 있을 때만 뺀다.
     public void changeTeam(Team team) {
+        if (this.team != null && isLoaded(this.team)) {
+            this.team.getMembers().remove(this);
+        }
         this.team = team;
         team.getMembers().add(this);
     }
-}
\ No newline at end of file
+
+    private static boolean isLoaded(Team team) {
+        return Hibernate.isInitialized(team) && Hibernate.isInitialized(team.getMembers());
+    }
+
+    MemberState loadedState() {
+        return loadedState;
+    }
+
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    void snapshot() {
+        loadedState = MemberState.of(this);
+    }
+}
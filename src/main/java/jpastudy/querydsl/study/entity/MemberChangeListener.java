@@ -0,0 +1,46 @@
+package jpastudy.querydsl.study.entity;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+// 엔티티 리스너는 엔티티 자신의 콜백보다 먼저 불리므로 여기서 보는 loadedState 는 아직 변경 전 값이다.
+@Component
+@RequiredArgsConstructor
+public class MemberChangeListener {
+
+    private final ApplicationEventPublisher publisher;
+
+    @PostPersist
+    public void postPersist(Member member) {
+        if (EntityChangeListener.isSuppressed()) {
+            return;
+        }
+        publisher.publishEvent(new MemberChangedEvent(null, MemberState.of(member)));
+    }
+
+    @PostUpdate
+    public void postUpdate(Member member) {
+        if (EntityChangeListener.isSuppressed()) {
+            return;
+        }
+        MemberState after = MemberState.of(member);
+        if (!after.equals(member.loadedState())) {
+            publisher.publishEvent(new MemberChangedEvent(member.loadedState(), after));
+        }
+    }
+
+    @PostRemove
+    public void postRemove(Member member) {
+        if (EntityChangeListener.isSuppressed()) {
+            return;
+        }
+        MemberState before = member.loadedState();
+        publisher.publishEvent(new MemberChangedEvent(
+            before != null ? before : MemberState.of(member), null));
+    }
+}
@@ -0,0 +1,15 @@
+package jpastudy.querydsl.study.entity;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+// before 가 null 이면 insert, after 가 null 이면 delete 다.
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class MemberChangedEvent {
+
+    private final MemberState before;
+    private final MemberState after;
+}
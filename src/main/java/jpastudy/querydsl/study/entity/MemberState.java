@@ -0,0 +1,32 @@
+package jpastudy.querydsl.study.entity;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import org.hibernate.proxy.HibernateProxy;
+
+// 통계에 필요한 값만 떼어낸 Member 상태, team 프록시는 초기화하지 않고 id 만 읽는다.
+@Getter
+@ToString
+@EqualsAndHashCode
+@RequiredArgsConstructor
+public class MemberState {
+
+    private final Long teamId;
+    private final int age;
+
+    public static MemberState of(Member member) {
+        return new MemberState(teamId(member.getTeam()), member.getAge());
+    }
+
+    private static Long teamId(Team team) {
+        if (team == null) {
+            return null;
+        }
+        if (team instanceof HibernateProxy) {
+            return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+        }
+        return team.getId();
+    }
+}
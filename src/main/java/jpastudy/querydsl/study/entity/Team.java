@@ -4,28 +4,48 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import java.util.ArrayList;
 import java.util.List;
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.OneToMany;
+import javax.persistence.Table;
 
 import static lombok.AccessLevel.PROTECTED;
 
 @Getter
 @Setter
 @Entity
+@Table(indexes = @Index(name = "idx_team_name", columnList = "name"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@EntityListeners(EntityChangeListener.class)
 @NoArgsConstructor(access = PROTECTED)
 @ToString(of = {"name"})
 public class Team {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "team_seq_generator")
+    @GenericGenerator(name = "team_seq_generator",
+        strategy = "jpastudy.querydsl.study.entity.BatchSequenceGenerator",
+        parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "team_seq"),
+            @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "100")
+        })
     private Long id;
     private String name;
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @OneToMany(mappedBy = "team")
     List<Member> members = new ArrayList<>();
 
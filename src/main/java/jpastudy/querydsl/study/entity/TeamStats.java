@@ -0,0 +1,48 @@
+package jpastudy.querydsl.study.entity;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import static lombok.AccessLevel.PROTECTED;
+
+// team 별 Member 집계, 벌크로 지워진 team 이 있어도 깨지지 않도록 FK 는 걸지 않는다.
+@Getter
+@Entity
+@NoArgsConstructor(access = PROTECTED)
+@ToString
+public class TeamStats {
+
+    @Id
+    @Column(name = "team_id")
+    private Long teamId;
+    private long memberCount;
+    private long ageSum;
+    private Integer minAge;
+    private Integer maxAge;
+
+    public TeamStats(Long teamId) {
+        this.teamId = teamId;
+    }
+
+    public void add(long count, long ageSum) {
+        this.memberCount += count;
+        this.ageSum += ageSum;
+    }
+
+    public void widen(int age) {
+        minAge = minAge == null ? age : Math.min(minAge, age);
+        maxAge = maxAge == null ? age : Math.max(maxAge, age);
+    }
+
+    public void reset(long memberCount, long ageSum, Integer minAge, Integer maxAge) {
+        this.memberCount = memberCount;
+        this.ageSum = ageSum;
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+    }
+}
@@ -0,0 +1,57 @@
+package jpastudy.querydsl.study.repo;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jpastudy.querydsl.study.config.MemberSearchProperties;
+import jpastudy.querydsl.study.entity.Member;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static jpastudy.querydsl.study.entity.QMember.member;
+import static jpastudy.querydsl.study.repo.support.InLists.paddedChunks;
+
+@Component
+@RequiredArgsConstructor
+public class MemberBatchLookup {
+
+    private final JPAQueryFactory queryFactory;
+    private final MemberSearchPredicates predicates;
+    private final MemberSearchProperties properties;
+
+    public Map<String, List<Member>> findByUsernames(Collection<String> usernames) {
+        Map<String, List<Member>> result = new HashMap<>();
+        for (List<String> chunk : paddedChunks(usernames, chunkSize())) {
+            List<Member> members = predicates.readOnly(queryFactory
+                .selectFrom(member)
+                .where(member.username.in(chunk)))
+                .fetch();
+            for (Member found : members) {
+                result.computeIfAbsent(found.getUsername(), k -> new ArrayList<>()).add(found);
+            }
+        }
+        return result;
+    }
+
+    public Map<Long, Member> findByIds(Collection<Long> ids) {
+        Map<Long, Member> result = new HashMap<>();
+        for (List<Long> chunk : paddedChunks(ids, chunkSize())) {
+            List<Member> members = predicates.readOnly(queryFactory
+                .selectFrom(member)
+                .where(member.id.in(chunk)))
+                .fetch();
+            for (Member found : members) {
+                result.put(found.getId(), found);
+            }
+        }
+        return result;
+    }
+
+    private int chunkSize() {
+        return properties.getLookup().getChunkSize();
+    }
+}
@@ -0,0 +1,428 @@
+package jpastudy.querydsl.study.repo;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jpastudy.querydsl.study.config.MemberSearchProperties;
+import jpastudy.querydsl.study.dto.MemberSearchCondition;
+import jpastudy.querydsl.study.dto.MemberTeamDto;
+import jpastudy.querydsl.study.entity.BulkChangedEvent;
+import jpastudy.querydsl.study.entity.EntityChangedEvent;
+import jpastudy.querydsl.study.entity.Member;
+import jpastudy.querydsl.study.entity.MemberState;
+import jpastudy.querydsl.study.entity.Team;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static jpastudy.querydsl.study.entity.QMember.member;
+import static jpastudy.querydsl.study.entity.QTeam.team;
+import static org.springframework.util.StringUtils.hasText;
+
+// member/team 을 열 단위 배열로 들고 있는 메모리 색인, search 와 같은 결과를 id 순으로 돌려준다.
+// 커밋된 엔티티 변경과 벌크 변경으로 id 단위 upsert 하므로 같은 변경이 두 번 와도 결과는 같다.
+@Slf4j
+@Component
+public class MemberColumnarIndex {
+
+    private static final int NO_TEAM = -1;
+
+    private final JPAQueryFactory queryFactory;
+    private final MemberSearchProperties properties;
+    private final TransactionTemplate loadTransaction;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private boolean loaded;
+
+    // member 열, 행 번호로 서로 맞물린다.
+    private int size;
+    private int removed;
+    private boolean sortedById;
+    private long[] ids;
+    private int[] ages;
+    private int[] teamSlots;
+    private int[] usernameCodes;
+    private BitSet live;
+    private Map<Long, Integer> rowById;
+    private Dictionary usernames;
+
+    // team 열, slot 번호로 맞물리고 slot 마다 소속 행 bitmap 을 둔다.
+    private int teamCount;
+    private long[] teamIds;
+    private int[] teamNameCodes;
+    private List<BitSet> teamRows;
+    private Map<Long, Integer> slotByTeamId;
+    private Dictionary teamNames;
+
+    public MemberColumnarIndex(JPAQueryFactory queryFactory, MemberSearchProperties properties,
+        PlatformTransactionManager transactionManager) {
+        this.queryFactory = queryFactory;
+        this.properties = properties;
+        this.loadTransaction = new TransactionTemplate(transactionManager);
+        this.loadTransaction.setReadOnly(true);
+        this.loadTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        clear();
+    }
+
+    // 쓰기 트랜잭션 안에서는 커밋되지 않은 변경이 색인에 없으므로 DB 로 보낸다.
+    public boolean isAvailable() {
+        return properties.getIndex().isEnabled()
+            && (!TransactionSynchronizationManager.isActualTransactionActive()
+            || TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            BitSet candidates = candidates(condition.getTeamName());
+            int usernameCode = -1;
+            if (hasText(condition.getUsername())) {
+                usernameCode = usernames.find(condition.getUsername());
+                if (usernameCode < 0) {
+                    return new ArrayList<>();
+                }
+            }
+            String contains = hasText(condition.getUsernameContains())
+                ? condition.getUsernameContains() : null;
+            String startsWith = hasText(condition.getUsernameStartsWith())
+                ? condition.getUsernameStartsWith() : null;
+            int ageGoe = condition.getAgeGoe() != null ? condition.getAgeGoe() : Integer.MIN_VALUE;
+            int ageLoe = condition.getAgeLoe() != null ? condition.getAgeLoe() : Integer.MAX_VALUE;
+
+            List<MemberTeamDto> result = new ArrayList<>();
+            for (int row = candidates.nextSetBit(0); row >= 0;
+                row = candidates.nextSetBit(row + 1)) {
+                if ((usernameCode >= 0 && usernameCodes[row] != usernameCode)
+                    || ages[row] < ageGoe || ages[row] > ageLoe
+                    || !usernames.matches(usernameCodes[row], contains, startsWith)) {
+                    continue;
+                }
+                result.add(toDto(row));
+            }
+            if (!sortedById) {
+                result.sort(Comparator.comparing(MemberTeamDto::getMemberId));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rowById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        Object entity = event.getEntity();
+        if (!(entity instanceof Member) && !(entity instanceof Team)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                return;
+            }
+            boolean removal = event.getType() == EntityChangedEvent.Type.REMOVED;
+            if (entity instanceof Member) {
+                Member changed = (Member) entity;
+                if (removal) {
+                    removeMember(changed.getId());
+                } else {
+                    putMember(changed.getId(), changed.getUsername(), changed.getAge(),
+                        MemberState.of(changed).getTeamId());
+                }
+            } else {
+                Team changed = (Team) entity;
+                putTeam(changed.getId(), removal ? null : changed.getName());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 벌크 update 는 바뀐 값을 모르므로 해당 id 만 다시 읽는다.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBulkChanged(BulkChangedEvent event) {
+        if (event.getEntityType() != Member.class || !isLoaded()) {
+            return;
+        }
+        List<Tuple> rows = event.getType() == EntityChangedEvent.Type.REMOVED
+            ? Collections.emptyList()
+            : loadTransaction.execute(status -> memberRows()
+                .where(member.id.in(event.getIds()))
+                .fetch());
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                return;
+            }
+            Set<Long> found = new HashSet<>();
+            for (Tuple row : rows) {
+                found.add(row.get(member.id));
+                putMember(row);
+            }
+            for (Long id : event.getIds()) {
+                if (!found.contains(id)) {
+                    removeMember(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return loaded;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 적재 중에 커밋된 변경은 쓰기 잠금을 기다렸다가 적재 뒤에 다시 반영된다.
+    private void ensureLoaded() {
+        if (isLoaded()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+            long started = System.currentTimeMillis();
+            loadTransaction.executeWithoutResult(status -> {
+                for (Tuple row : queryFactory.select(team.id, team.name).from(team).fetch()) {
+                    putTeam(row.get(team.id), row.get(team.name));
+                }
+                for (Tuple row : memberRows().orderBy(member.id.asc()).fetch()) {
+                    putMember(row);
+                }
+            });
+            loaded = true;
+            log.info("loaded member search index with {} members, {} teams in {}ms",
+                rowById.size(), teamCount, System.currentTimeMillis() - started);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private JPAQuery<Tuple> memberRows() {
+        return queryFactory
+            .select(member.id, member.username, member.age, member.team.id)
+            .from(member);
+    }
+
+    private BitSet candidates(String teamName) {
+        if (!hasText(teamName)) {
+            return live;
+        }
+        BitSet candidates = new BitSet(size);
+        int nameCode = teamNames.find(teamName);
+        if (nameCode < 0) {
+            return candidates;
+        }
+        for (int slot = 0; slot < teamCount; slot++) {
+            if (teamNameCodes[slot] == nameCode) {
+                candidates.or(teamRows.get(slot));
+            }
+        }
+        return candidates;
+    }
+
+    private MemberTeamDto toDto(int row) {
+        int slot = teamSlots[row];
+        if (slot == NO_TEAM) {
+            return new MemberTeamDto(ids[row], usernames.value(usernameCodes[row]), ages[row],
+                null, null);
+        }
+        return new MemberTeamDto(ids[row], usernames.value(usernameCodes[row]), ages[row],
+            teamIds[slot], teamNames.value(teamNameCodes[slot]));
+    }
+
+    private void putMember(Tuple row) {
+        putMember(row.get(member.id), row.get(member.username), row.get(member.age),
+            row.get(member.team.id));
+    }
+
+    private void putMember(Long id, String username, int age, Long teamId) {
+        Integer row = rowById.get(id);
+        if (row == null) {
+            row = append(id);
+        } else if (teamSlots[row] != NO_TEAM) {
+            teamRows.get(teamSlots[row]).clear(row);
+        }
+        usernameCodes[row] = usernames.encode(username);
+        ages[row] = age;
+        teamSlots[row] = teamId != null ? teamSlot(teamId) : NO_TEAM;
+        if (teamSlots[row] != NO_TEAM) {
+            teamRows.get(teamSlots[row]).set(row);
+        }
+    }
+
+    private int append(long id) {
+        if (size == ids.length) {
+            int capacity = Math.max(16, size * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            ages = Arrays.copyOf(ages, capacity);
+            teamSlots = Arrays.copyOf(teamSlots, capacity);
+            usernameCodes = Arrays.copyOf(usernameCodes, capacity);
+        }
+        if (size > 0 && ids[size - 1] > id) {
+            sortedById = false;
+        }
+        int row = size++;
+        ids[row] = id;
+        live.set(row);
+        rowById.put(id, row);
+        return row;
+    }
+
+    private void removeMember(Long id) {
+        Integer row = rowById.remove(id);
+        if (row == null) {
+            return;
+        }
+        live.clear(row);
+        if (teamSlots[row] != NO_TEAM) {
+            teamRows.get(teamSlots[row]).clear(row);
+        }
+        if (++removed > 1024 && removed > size / 2) {
+            compact();
+        }
+    }
+
+    // 지워진 행이 절반을 넘으면 살아 있는 행만 id 순으로 다시 쌓는다.
+    private void compact() {
+        long[] oldIds = Arrays.copyOf(ids, size);
+        int[] oldAges = ages;
+        int[] oldSlots = teamSlots;
+        int[] oldUsernames = usernameCodes;
+        BitSet oldLive = live;
+        Integer[] rows = oldLive.stream().boxed().toArray(Integer[]::new);
+        Arrays.sort(rows, Comparator.comparingLong(row -> oldIds[row]));
+
+        resetRows();
+        teamRows.replaceAll(rowsOfTeam -> new BitSet());
+        for (int old : rows) {
+            int row = append(oldIds[old]);
+            ages[row] = oldAges[old];
+            usernameCodes[row] = oldUsernames[old];
+            teamSlots[row] = oldSlots[old];
+            if (teamSlots[row] != NO_TEAM) {
+                teamRows.get(teamSlots[row]).set(row);
+            }
+        }
+    }
+
+    private void putTeam(Long id, String name) {
+        int slot = teamSlot(id);
+        teamNameCodes[slot] = name != null ? teamNames.encode(name) : -1;
+    }
+
+    private int teamSlot(Long teamId) {
+        Integer slot = slotByTeamId.get(teamId);
+        if (slot != null) {
+            return slot;
+        }
+        if (teamCount == teamIds.length) {
+            int capacity = Math.max(8, teamCount * 2);
+            teamIds = Arrays.copyOf(teamIds, capacity);
+            teamNameCodes = Arrays.copyOf(teamNameCodes, capacity);
+        }
+        int created = teamCount++;
+        teamIds[created] = teamId;
+        teamNameCodes[created] = -1;
+        teamRows.add(new BitSet());
+        slotByTeamId.put(teamId, created);
+        return created;
+    }
+
+    private void clear() {
+        loaded = false;
+        resetRows();
+        usernames = new Dictionary();
+        teamCount = 0;
+        teamIds = new long[0];
+        teamNameCodes = new int[0];
+        teamRows = new ArrayList<>();
+        slotByTeamId = new HashMap<>();
+        teamNames = new Dictionary();
+    }
+
+    private void resetRows() {
+        size = 0;
+        removed = 0;
+        sortedById = true;
+        ids = new long[0];
+        ages = new int[0];
+        teamSlots = new int[0];
+        usernameCodes = new int[0];
+        live = new BitSet();
+        rowById = new HashMap<>();
+    }
+
+    // 문자열을 한 번만 들고 행에는 int 코드만 둔다.
+    private static class Dictionary {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int encode(String value) {
+            return codes.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+
+        int find(String value) {
+            return codes.getOrDefault(value, -1);
+        }
+
+        String value(int code) {
+            return code >= 0 ? values.get(code) : null;
+        }
+
+        boolean matches(int code, String contains, String startsWith) {
+            if (contains == null && startsWith == null) {
+                return true;
+            }
+            String value = value(code);
+            return value != null
+                && (contains == null || value.contains(contains))
+                && (startsWith == null || value.startsWith(startsWith));
+        }
+    }
+}
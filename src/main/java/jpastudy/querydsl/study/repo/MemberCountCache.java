@@ -0,0 +1,108 @@
+package jpastudy.querydsl.study.repo;
+
+import jpastudy.querydsl.study.config.MemberSearchProperties;
+import jpastudy.querydsl.study.dto.MemberSearchCondition;
+import jpastudy.querydsl.study.entity.BulkChangedEvent;
+import jpastudy.querydsl.study.entity.EntityChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.springframework.util.StringUtils.hasText;
+
+@Component
+@RequiredArgsConstructor
+public class MemberCountCache {
+
+    private final MemberSearchProperties properties;
+
+    private final Map<MemberSearchCondition, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    public long get(MemberSearchCondition condition, LongSupplier counter) {
+        if (!isCacheable()) {
+            return counter.getAsLong();
+        }
+        MemberSearchCondition key = normalize(condition);
+        long now = System.nanoTime();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt - now > 0) {
+            return entry.count;
+        }
+
+        long startGeneration = generation.get();
+        long count = counter.getAsLong();
+        if (generation.get() == startGeneration) {
+            if (entries.size() >= properties.getCount().getMaxEntries()) {
+                entries.values().removeIf(e -> e.expiresAt - now <= 0);
+            }
+            if (entries.size() < properties.getCount().getMaxEntries()) {
+                entries.put(key, new Entry(count, now + properties.getCount().getTtl().toNanos()));
+            }
+        }
+        return count;
+    }
+
+    public OptionalLong cached(MemberSearchCondition condition) {
+        if (!isCacheable()) {
+            return OptionalLong.empty();
+        }
+        Entry entry = entries.get(normalize(condition));
+        if (entry == null || entry.expiresAt - System.nanoTime() <= 0) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(entry.count);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBulkChanged(BulkChangedEvent event) {
+        invalidateAll();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // 쓰기 트랜잭션 안에서는 커밋되지 않은 행이 count 에 섞일 수 있으므로 캐시를 거치지 않는다.
+    boolean isCacheable() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+            || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    static MemberSearchCondition normalize(MemberSearchCondition condition) {
+        MemberSearchCondition key = new MemberSearchCondition();
+        key.setUsername(hasText(condition.getUsername()) ? condition.getUsername() : null);
+        key.setUsernameContains(hasText(condition.getUsernameContains())
+            ? condition.getUsernameContains() : null);
+        key.setUsernameStartsWith(hasText(condition.getUsernameStartsWith())
+            ? condition.getUsernameStartsWith() : null);
+        key.setTeamName(hasText(condition.getTeamName()) ? condition.getTeamName() : null);
+        key.setAgeGoe(condition.getAgeGoe());
+        key.setAgeLoe(condition.getAgeLoe());
+        return key;
+    }
+
+    @RequiredArgsConstructor
+    private static class Entry {
+
+        private final long count;
+        private final long expiresAt;
+    }
+}
@@ -1,31 +1,40 @@
 package jpastudy.querydsl.study.repo;
 
-import com.querydsl.core.BooleanBuilder;
-import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jpastudy.querydsl.study.dto.MemberSearchCondition;
 import jpastudy.querydsl.study.dto.MemberTeamDto;
-import jpastudy.querydsl.study.dto.QMemberTeamDto;
 import jpastudy.querydsl.study.entity.Member;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import javax.persistence.EntityManager;
 
 import static jpastudy.querydsl.study.entity.QMember.member;
 import static jpastudy.querydsl.study.entity.QTeam.team;
-import static org.springframework.util.StringUtils.hasText;
+import static jpastudy.querydsl.study.repo.MemberSearchPredicates.MEMBER_TEAM;
+import static org.hibernate.annotations.QueryHints.CACHEABLE;
 
 @Repository
 public class MemberJpaRepo {
 
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberSearchPredicates predicates;
+    private final MemberBatchLookup batchLookup;
+    private final MemberColumnarIndex columnarIndex;
 
-    public MemberJpaRepo(EntityManager em) {
+    public MemberJpaRepo(EntityManager em, JPAQueryFactory queryFactory,
+        MemberSearchPredicates predicates, MemberBatchLookup batchLookup,
+        MemberColumnarIndex columnarIndex) {
         this.em = em;
-        this.queryFactory = new JPAQueryFactory(em);
+        this.queryFactory = queryFactory;
+        this.predicates = predicates;
+        this.batchLookup = batchLookup;
+        this.columnarIndex = columnarIndex;
     }
 
     public void save(Member member) {
@@ -50,85 +59,42 @@ public class MemberJpaRepo {
     public List<Member> findByUsername(String username) {
         return em.createQuery("select m from Member m where m.username = :username ", Member.class)
             .setParameter("username", username)
+            .setHint(CACHEABLE, true)
             .getResultList();
     }
 
     public List<Member> findByUsernameQueryDsl(String username) {
         return queryFactory.selectFrom(member)
             .where(member.username.eq(username))
+            .setHint(CACHEABLE, true)
             .fetch();
     }
 
-    public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
-
-        BooleanBuilder builder = new BooleanBuilder();
-        if (hasText(condition.getUsername())) {
-            builder.and(member.username.eq(condition.getUsername()));
-        }
-
-        if (hasText(condition.getTeamName())) {
-            builder.and(team.name.eq(condition.getTeamName()));
-        }
-
-        if (condition.getAgeGoe() != null) {
-            builder.and(member.age.goe(condition.getAgeGoe()));
-        }
-
-        if (condition.getAgeLoe() != null) {
-            builder.and(member.age.loe(condition.getAgeLoe()));
-        }
+    @Transactional(readOnly = true)
+    public Map<String, List<Member>> findByUsernames(Collection<String> usernames) {
+        return batchLookup.findByUsernames(usernames);
+    }
 
-        return queryFactory
-            .select(new QMemberTeamDto(
-                member.id.as("memberId"),
-                member.username,
-                member.age,
-                team.id.as("teamId"),
-                team.name.as("teamName")
-            ))
-            .from(member)
-            .leftJoin(member.team, team)
-            .where(builder)
-            .fetch();
+    @Transactional(readOnly = true)
+    public Map<Long, Member> findByIds(Collection<Long> ids) {
+        return batchLookup.findByIds(ids);
     }
 
-    public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
-            .select(new QMemberTeamDto(
-                member.id.as("memberId"),
-                member.username,
-                member.age,
-                team.id.as("teamId"),
-                team.name.as("teamName")
-            ))
+    @Transactional(readOnly = true)
+    public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
+        return predicates.readOnly(queryFactory
+            .select(MEMBER_TEAM)
             .from(member)
             .leftJoin(member.team, team)
-            .where(usernameEq(condition.getUsername()),
-                teamNameEq(condition.getTeamName()),
-                ageGoe(condition.getAgeGoe()),
-                ageLoe(condition.getAgeLoe())
-            )
+            .where(predicates.builder(condition)))
             .fetch();
     }
 
-    private BooleanExpression ageBetween(int ageLoe, int ageGoe) {
-        return
-            ageGoe(ageLoe).and(ageGoe(ageGoe));
-    }
-
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
+    @Transactional(readOnly = true)
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        if (columnarIndex.isAvailable()) {
+            return columnarIndex.search(condition);
+        }
+        return predicates.search(condition);
     }
 }
\ No newline at end of file
@@ -0,0 +1,96 @@
+package jpastudy.querydsl.study.repo;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jpastudy.querydsl.study.dto.CursorSlice;
+import jpastudy.querydsl.study.dto.MemberSearchCondition;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+@Component
+@RequiredArgsConstructor
+public class MemberQueryMetrics {
+
+    public static final String QUERY = "member.repo.query";
+    public static final String ROWS = "member.repo.rows";
+    public static final String COUNT = "member.repo.count";
+    public static final String CONTENT = "member.repo.content";
+
+    private final MeterRegistry registry;
+
+    public long count(MemberSearchCondition condition, LongSupplier countQuery) {
+        Timer.Sample sample = Timer.start(registry);
+        try {
+            return countQuery.getAsLong();
+        } finally {
+            sample.stop(timer(COUNT, shape(condition)));
+        }
+    }
+
+    public <T> List<T> content(MemberSearchCondition condition, Supplier<List<T>> contentQuery) {
+        Timer.Sample sample = Timer.start(registry);
+        try {
+            return contentQuery.get();
+        } finally {
+            sample.stop(timer(CONTENT, shape(condition)));
+        }
+    }
+
+    void record(String method, String shape, String outcome, long nanos, Object result) {
+        Timer.builder(QUERY)
+            .tag("method", method)
+            .tag("shape", shape)
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+        if (result != null) {
+            DistributionSummary.builder(ROWS)
+                .tag("method", method)
+                .tag("shape", shape)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(rows(result));
+        }
+    }
+
+    private Timer timer(String name, String shape) {
+        return Timer.builder(name)
+            .tag("shape", shape)
+            .publishPercentileHistogram()
+            .register(registry);
+    }
+
+    static String shape(MemberSearchCondition condition) {
+        return condition == null ? "none" : MemberSearchShape.of(condition).toString();
+    }
+
+    static long rows(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Map) {
+            return ((Map<?, ?>) result).size();
+        }
+        if (result instanceof Slice) {
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if (result instanceof CursorSlice) {
+            return ((CursorSlice<?>) result).getContent().size();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,45 @@
+package jpastudy.querydsl.study.repo;
+
+import jpastudy.querydsl.study.dto.MemberSearchCondition;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class MemberQueryMetricsAspect {
+
+    private final MemberQueryMetrics metrics;
+
+    // MemberRepo 프록시가 아니라 구현 빈에 걸어서 한 호출이 두 번 기록되지 않게 한다.
+    @Around("execution(public * jpastudy.querydsl.study.repo.MemberRepoCustomImpl.*(..))"
+        + " || execution(public * jpastudy.querydsl.study.repo.MemberJpaRepo.*(..))"
+        + " || execution(public * jpastudy.querydsl.study.repo.MemberQueryRepo.*(..))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        String method = joinPoint.getSignature().getDeclaringType().getSimpleName()
+            + "." + joinPoint.getSignature().getName();
+        String shape = MemberQueryMetrics.shape(condition(joinPoint.getArgs()));
+        long start = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            metrics.record(method, shape, "success", System.nanoTime() - start, result);
+            return result;
+        } catch (Throwable e) {
+            metrics.record(method, shape, e.getClass().getSimpleName(),
+                System.nanoTime() - start, null);
+            throw e;
+        }
+    }
+
+    private MemberSearchCondition condition(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof MemberSearchCondition) {
+                return (MemberSearchCondition) arg;
+            }
+        }
+        return null;
+    }
+}
@@ -2,12 +2,17 @@ package jpastudy.querydsl.study.repo;
 
 import jpastudy.querydsl.study.entity.Member;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
 
 import java.util.List;
+import javax.persistence.QueryHint;
+
+import static org.hibernate.annotations.QueryHints.CACHEABLE;
 
 public interface MemberRepo extends JpaRepository<Member, Long>, MemberRepoCustom,
     QuerydslPredicateExecutor<Member> {
 
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
     List<Member> findByUsername(String username);
 }
\ No newline at end of file
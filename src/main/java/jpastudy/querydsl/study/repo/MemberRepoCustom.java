@@ -1,11 +1,17 @@
 package jpastudy.querydsl.study.repo;
 
+import jpastudy.querydsl.study.dto.CursorSlice;
+import jpastudy.querydsl.study.dto.MemberCursor;
 import jpastudy.querydsl.study.dto.MemberSearchCondition;
 import jpastudy.querydsl.study.dto.MemberTeamDto;
+import jpastudy.querydsl.study.entity.Member;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface MemberRepoCustom {
 
@@ -15,4 +21,13 @@ public interface MemberRepoCustom {
 
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
 
+    Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable);
+
+    CursorSlice<MemberTeamDto> searchKeyset(MemberSearchCondition condition, MemberCursor cursor,
+        int size);
+
+    Map<String, List<Member>> findByUsernames(Collection<String> usernames);
+
+    Map<Long, Member> findByIds(Collection<Long> ids);
+
 }
\ No newline at end of file
@@ -1,134 +1,251 @@
 package jpastudy.querydsl.study.repo;
 
-import com.querydsl.core.QueryResults;
+import com.querydsl.core.types.OrderSpecifier;
 import com.querydsl.core.types.dsl.BooleanExpression;
-import com.querydsl.jpa.JPQLQuery;
-import com.querydsl.jpa.JPQLQueryFactory;
-import com.querydsl.jpa.impl.JPAQueryFactory;
+import jpastudy.querydsl.study.config.MemberSearchProperties;
+import jpastudy.querydsl.study.dto.CountedPage;
+import jpastudy.querydsl.study.dto.CursorSlice;
+import jpastudy.querydsl.study.dto.MemberCursor;
 import jpastudy.querydsl.study.dto.MemberSearchCondition;
 import jpastudy.querydsl.study.dto.MemberTeamDto;
-import jpastudy.querydsl.study.dto.QMemberTeamDto;
+import jpastudy.querydsl.study.entity.Member;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import javax.persistence.EntityManager;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
 
 import static jpastudy.querydsl.study.entity.QMember.member;
-import static jpastudy.querydsl.study.entity.QTeam.team;
-import static org.springframework.util.StringUtils.hasText;
 
+@Slf4j
+@Transactional(readOnly = true)
 public class MemberRepoCustomImpl implements MemberRepoCustom {
 
-    private final JPQLQueryFactory queryFactory;
+    private final MemberSearchPredicates predicates;
+    private final MemberCountCache countCache;
+    private final MemberSearchProperties properties;
+    private final Executor countExecutor;
+    private final MemberQueryMetrics metrics;
+    private final MemberBatchLookup batchLookup;
+    private final TransactionTemplate countTransaction;
+    private final MemberStatistics statistics;
+    private final MemberColumnarIndex columnarIndex;
 
-    public MemberRepoCustomImpl(EntityManager em) {
-        this.queryFactory = new JPAQueryFactory(em);
+    public MemberRepoCustomImpl(MemberSearchPredicates predicates, MemberCountCache countCache,
+        MemberSearchProperties properties,
+        @Qualifier("memberCountExecutor") Executor memberCountExecutor,
+        MemberQueryMetrics metrics, MemberBatchLookup batchLookup,
+        PlatformTransactionManager transactionManager, MemberStatistics statistics,
+        MemberColumnarIndex columnarIndex) {
+        this.predicates = predicates;
+        this.countCache = countCache;
+        this.properties = properties;
+        this.countExecutor = memberCountExecutor;
+        this.metrics = metrics;
+        this.batchLookup = batchLookup;
+        this.countTransaction = new TransactionTemplate(transactionManager);
+        this.countTransaction.setReadOnly(true);
+        this.statistics = statistics;
+        this.columnarIndex = columnarIndex;
     }
 
     @Override
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
-            .select(new QMemberTeamDto(
-                member.id.as("memberId"),
-                member.username,
-                member.age,
-                team.id.as("teamId"),
-                team.name.as("teamName")
-            ))
-            .from(member)
-            .leftJoin(member.team, team)
-            .where(usernameEq(condition.getUsername()),
-                teamNameEq(condition.getTeamName()),
-                ageGoe(condition.getAgeGoe()),
-                ageLoe(condition.getAgeLoe())
-            )
-            .fetch();
+        if (columnarIndex.isAvailable()) {
+            return columnarIndex.search(condition);
+        }
+        return predicates.search(condition);
     }
 
     @Override
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition,
         Pageable pageable) {
-        QueryResults<MemberTeamDto> results = queryFactory
-            .select(new QMemberTeamDto(
-                member.id.as("memberId"),
-                member.username,
-                member.age,
-                team.id.as("teamId"),
-                team.name.as("teamName")
-            ))
-            .from(member)
-            .leftJoin(member.team, team)
-            .where(usernameEq(condition.getUsername()),
-                teamNameEq(condition.getTeamName()),
-                ageGoe(condition.getAgeGoe()),
-                ageLoe(condition.getAgeLoe())
-            )
-            .offset(pageable.getOffset())
-            .limit(pageable.getPageSize())
-            .fetchResults();
+        OptionalLong estimate = estimate(condition);
+        if (estimate.isPresent()) {
+            return estimatedPage(fetchContent(condition, pageable), pageable,
+                estimate.getAsLong());
+        }
 
-        List<MemberTeamDto> content = results.getResults();
-        long total = results.getTotal();
-        return new PageImpl<>(content, pageable, total);
+        long total = countCache.get(condition, () -> fetchCount(condition));
+        if (total <= pageable.getOffset()) {
+            return new CountedPage<>(Collections.emptyList(), pageable, total, true);
+        }
+        return new CountedPage<>(fetchContent(condition, pageable), pageable, total, true);
     }
 
     @Override
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition,
         Pageable pageable) {
-        List<MemberTeamDto> content = queryFactory
-            .select(new QMemberTeamDto(
-                member.id.as("memberId"),
-                member.username,
-                member.age,
-                team.id.as("teamId"),
-                team.name.as("teamName")
-            ))
-            .from(member)
-            .leftJoin(member.team, team)
-            .where(usernameEq(condition.getUsername()),
-                teamNameEq(condition.getTeamName()),
-                ageGoe(condition.getAgeGoe()),
-                ageLoe(condition.getAgeLoe())
-            )
+        OptionalLong estimate = estimate(condition);
+        if (estimate.isPresent()) {
+            return estimatedPage(fetchContent(condition, pageable), pageable,
+                estimate.getAsLong());
+        }
+
+        LongSupplier total = () -> countCache.get(condition, () -> fetchCount(condition));
+        CompletableFuture<Long> parallel = null;
+        if (properties.getCount().isConcurrent() && countCache.isCacheable()
+            && !countCache.cached(condition).isPresent()) {
+            parallel = parallelCount(total);
+        }
+
+        List<MemberTeamDto> content = fetchContent(condition, pageable);
+
+        if (parallel == null) {
+            return exactPage(PageableExecutionUtils.getPage(content, pageable, total));
+        }
+        CompletableFuture<Long> totalFuture = parallel;
+        Page<MemberTeamDto> page = PageableExecutionUtils.getPage(content, pageable,
+            () -> awaitCount(totalFuture, total));
+        totalFuture.cancel(false);
+        return exactPage(page);
+    }
+
+    // 캐시된 정확한 count 가 없고 통계 추정치가 임계값 이상이면 count 쿼리 대신 추정치를 쓴다.
+    // 쓰기 트랜잭션 안에서는 커밋되지 않은 변경이 통계에 없으므로 항상 정확히 센다.
+    private OptionalLong estimate(MemberSearchCondition condition) {
+        if (!countCache.isCacheable() || countCache.cached(condition).isPresent()) {
+            return OptionalLong.empty();
+        }
+        OptionalLong estimate = statistics.estimate(condition);
+        if (estimate.isPresent()
+            && estimate.getAsLong() >= properties.getEstimate().getThreshold()) {
+            return estimate;
+        }
+        return OptionalLong.empty();
+    }
+
+    // 마지막 페이지라는 게 content 로 드러나면 추정치 대신 정확한 total 이 나온다.
+    private Page<MemberTeamDto> estimatedPage(List<MemberTeamDto> content, Pageable pageable,
+        long estimate) {
+        AtomicBoolean estimated = new AtomicBoolean();
+        Page<MemberTeamDto> page = PageableExecutionUtils.getPage(content, pageable, () -> {
+            estimated.set(true);
+            return estimate;
+        });
+        return new CountedPage<>(page.getContent(), pageable, page.getTotalElements(),
+            !estimated.get());
+    }
+
+    private Page<MemberTeamDto> exactPage(Page<MemberTeamDto> page) {
+        return new CountedPage<>(page.getContent(), page.getPageable(), page.getTotalElements(),
+            true);
+    }
+
+    private List<MemberTeamDto> fetchContent(MemberSearchCondition condition, Pageable pageable) {
+        return metrics.content(condition, () -> predicates
+            .contentQuery(condition)
             .offset(pageable.getOffset())
             .limit(pageable.getPageSize())
+            .fetch());
+    }
+
+    // count 를 다른 스레드의 별도 읽기 전용 트랜잭션(별도 커넥션)에서 content 와 동시에 돌린다.
+    private CompletableFuture<Long> parallelCount(LongSupplier total) {
+        try {
+            return CompletableFuture.supplyAsync(
+                () -> countTransaction.execute(status -> total.getAsLong()), countExecutor);
+        } catch (RejectedExecutionException e) {
+            log.debug("count executor saturated, counting serially");
+            return null;
+        }
+    }
+
+    private long awaitCount(CompletableFuture<Long> totalFuture, LongSupplier serial) {
+        try {
+            return totalFuture.get(properties.getCount().getTimeout().toMillis(),
+                TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("parallel count failed, counting serially: {}", e.toString());
+        }
+        totalFuture.cancel(true);
+        return serial.getAsLong();
+    }
+
+    // 한 건 더 읽어서 다음 페이지 여부만 판단하고 count 쿼리는 날리지 않는다.
+    @Override
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+        List<MemberTeamDto> content = metrics.content(condition, () -> predicates
+            .contentQuery(condition)
+            .orderBy(member.id.asc())
+            .offset(pageable.getOffset())
+            .limit(pageable.getPageSize() + 1L)
+            .fetch());
+
+        boolean hasNext = content.size() > pageable.getPageSize();
+        if (hasNext) {
+            content = content.subList(0, pageable.getPageSize());
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    @Override
+    public CursorSlice<MemberTeamDto> searchKeyset(MemberSearchCondition condition,
+        MemberCursor cursor, int size) {
+        List<MemberTeamDto> content = predicates.contentQuery(condition)
+            .where(after(cursor))
+            .orderBy(keysetOrder(cursor.getSort()))
+            .limit(size + 1L)
             .fetch();
 
-        JPQLQuery<MemberTeamDto> countQuery = queryFactory
-            .select(new QMemberTeamDto(
-                member.id.as("memberId"),
-                member.username,
-                member.age,
-                team.id.as("teamId"),
-                team.name.as("teamName")
-            ))
-            .from(member)
-            .leftJoin(member.team, team)
-            .where(usernameEq(condition.getUsername()),
-                teamNameEq(condition.getTeamName()),
-                ageGoe(condition.getAgeGoe()),
-                ageLoe(condition.getAgeLoe())
-            );
-        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchCount);
-//        return new PageImpl<>(content, pageable, total);
+        if (content.size() <= size) {
+            return new CursorSlice<>(content, null);
+        }
+        content = content.subList(0, size);
+        MemberTeamDto last = content.get(size - 1);
+        return new CursorSlice<>(content, MemberCursor.after(cursor.getSort(), last).encode());
     }
 
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    @Override
+    public Map<String, List<Member>> findByUsernames(Collection<String> usernames) {
+        return batchLookup.findByUsernames(usernames);
+    }
+
+    @Override
+    public Map<Long, Member> findByIds(Collection<Long> ids) {
+        return batchLookup.findByIds(ids);
     }
 
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    private long fetchCount(MemberSearchCondition condition) {
+        return metrics.count(condition, () -> predicates.countQuery(condition).fetchOne());
     }
 
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
+    private BooleanExpression after(MemberCursor cursor) {
+        if (cursor.isFirst()) {
+            return null;
+        }
+        if (cursor.getSort() == MemberCursor.Sort.AGE) {
+            return member.age.gt(cursor.getAge())
+                .or(member.age.eq(cursor.getAge()).and(member.id.gt(cursor.getMemberId())));
+        }
+        return member.id.gt(cursor.getMemberId());
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
+    private OrderSpecifier<?>[] keysetOrder(MemberCursor.Sort sort) {
+        if (sort == MemberCursor.Sort.AGE) {
+            return new OrderSpecifier<?>[]{member.age.asc(), member.id.asc()};
+        }
+        return new OrderSpecifier<?>[]{member.id.asc()};
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,141 @@
+package jpastudy.querydsl.study.repo;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jpastudy.querydsl.study.config.MemberSearchProperties;
+import jpastudy.querydsl.study.dto.MemberSearchCondition;
+import jpastudy.querydsl.study.dto.MemberTeamDto;
+import jpastudy.querydsl.study.dto.QMemberTeamDto;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.FlushMode;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static jpastudy.querydsl.study.entity.QMember.member;
+import static jpastudy.querydsl.study.entity.QTeam.team;
+import static jpastudy.querydsl.study.repo.support.InLists.paddedChunks;
+import static org.springframework.util.StringUtils.hasText;
+
+@Component
+@RequiredArgsConstructor
+public class MemberSearchPredicates {
+
+    public static final QMemberTeamDto MEMBER_TEAM = new QMemberTeamDto(
+        member.id.as("memberId"),
+        member.username,
+        member.age,
+        team.id.as("teamId"),
+        team.name.as("teamName")
+    );
+
+    private final JPAQueryFactory queryFactory;
+    private final UsernameIndex usernameIndex;
+    private final MemberSearchProperties properties;
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return contentQuery(condition).fetch();
+    }
+
+    // teamName 조건이 있으면 null team 은 어차피 걸러지므로 inner join 으로 team 인덱스부터 탈 수 있게 한다.
+    public JPAQuery<MemberTeamDto> contentQuery(MemberSearchCondition condition) {
+        JPAQuery<MemberTeamDto> query = queryFactory
+            .select(MEMBER_TEAM)
+            .from(member);
+        if (hasText(condition.getTeamName())) {
+            query.join(member.team, team);
+        } else {
+            query.leftJoin(member.team, team);
+        }
+        return readOnly(query.where(where(condition)));
+    }
+
+    // count 에는 DTO 프로젝션이 필요 없고, team 조인은 teamName 조건이 있을 때만 필요하다.
+    public JPAQuery<Long> countQuery(MemberSearchCondition condition) {
+        JPAQuery<Long> query = queryFactory
+            .select(member.count())
+            .from(member);
+        if (hasText(condition.getTeamName())) {
+            query.join(member.team, team);
+        }
+        return readOnly(query.where(where(condition)));
+    }
+
+    // 쓰기 트랜잭션 밖에서는 스냅샷을 만들지 않고 조회 전 auto flush 검사도 건너뛴다.
+    // 읽기 전용 트랜잭션은 세션 기본값이 이미 그렇고, 트랜잭션 없이 열린 EntityManager(open-in-view)에서는 이 hint 가 유일하다.
+    // 쓰기 트랜잭션 안에서는 아직 flush 되지 않은 변경을 봐야 하므로 그대로 둔다.
+    public <T> JPAQuery<T> readOnly(JPAQuery<T> query) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+            && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return query;
+        }
+        return query
+            .setHint(QueryHints.READ_ONLY, true)
+            .setHint(QueryHints.FLUSH_MODE, FlushMode.MANUAL);
+    }
+
+    public Predicate[] where(MemberSearchCondition condition) {
+        return new Predicate[]{
+            usernameEq(condition.getUsername()),
+            usernameContains(condition.getUsernameContains()),
+            usernameStartsWith(condition.getUsernameStartsWith()),
+            teamNameEq(condition.getTeamName()),
+            ageGoe(condition.getAgeGoe()),
+            ageLoe(condition.getAgeLoe())
+        };
+    }
+
+    public BooleanBuilder builder(MemberSearchCondition condition) {
+        BooleanBuilder builder = new BooleanBuilder();
+        for (Predicate predicate : where(condition)) {
+            builder.and(predicate);
+        }
+        return builder;
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    private BooleanExpression usernameEq(String username) {
+        return hasText(username) ? member.username.eq(username) : null;
+    }
+
+    // 앞에 % 가 붙은 like 는 인덱스를 못 타므로 색인에서 찾은 id 로 pk 조회한다.
+    private BooleanExpression usernameContains(String text) {
+        if (!hasText(text)) {
+            return null;
+        }
+        return idIn(usernameIndex.containing(text)).orElseGet(() -> member.username.contains(text));
+    }
+
+    private BooleanExpression usernameStartsWith(String prefix) {
+        if (!hasText(prefix)) {
+            return null;
+        }
+        return idIn(usernameIndex.startingWith(prefix))
+            .orElseGet(() -> member.username.startsWith(prefix));
+    }
+
+    // 후보 수는 maxCandidates 이하라 청크가 하나뿐이고, 길이를 2의 거듭제곱으로 맞춰 plan 캐시를 재사용한다.
+    private Optional<BooleanExpression> idIn(Optional<List<Long>> ids) {
+        return ids.map(found -> member.id.in(found.isEmpty()
+            ? Collections.emptyList()
+            : paddedChunks(found, properties.getUsernameIndex().getMaxCandidates()).get(0)));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,103 @@
+package jpastudy.querydsl.study.repo;
+
+import jpastudy.querydsl.study.dto.MemberSearchCondition;
+
+import java.util.StringJoiner;
+
+import static org.springframework.util.StringUtils.hasText;
+
+public final class MemberSearchShape {
+
+    private static final int USERNAME = 1;
+    private static final int TEAM_NAME = 1 << 1;
+    private static final int AGE_GOE = 1 << 2;
+    private static final int AGE_LOE = 1 << 3;
+    private static final int USERNAME_CONTAINS = 1 << 4;
+    private static final int USERNAME_STARTS_WITH = 1 << 5;
+
+    private static final MemberSearchShape[] SHAPES = new MemberSearchShape[1 << 6];
+
+    static {
+        for (int mask = 0; mask < SHAPES.length; mask++) {
+            SHAPES[mask] = new MemberSearchShape(mask);
+        }
+    }
+
+    private final int mask;
+
+    private MemberSearchShape(int mask) {
+        this.mask = mask;
+    }
+
+    public static MemberSearchShape of(MemberSearchCondition condition) {
+        int mask = 0;
+        if (hasText(condition.getUsername())) {
+            mask |= USERNAME;
+        }
+        if (hasText(condition.getTeamName())) {
+            mask |= TEAM_NAME;
+        }
+        if (condition.getAgeGoe() != null) {
+            mask |= AGE_GOE;
+        }
+        if (condition.getAgeLoe() != null) {
+            mask |= AGE_LOE;
+        }
+        if (hasText(condition.getUsernameContains())) {
+            mask |= USERNAME_CONTAINS;
+        }
+        if (hasText(condition.getUsernameStartsWith())) {
+            mask |= USERNAME_STARTS_WITH;
+        }
+        return SHAPES[mask];
+    }
+
+    public boolean hasUsername() {
+        return (mask & USERNAME) != 0;
+    }
+
+    public boolean hasTeamName() {
+        return (mask & TEAM_NAME) != 0;
+    }
+
+    public boolean hasAgeGoe() {
+        return (mask & AGE_GOE) != 0;
+    }
+
+    public boolean hasAgeLoe() {
+        return (mask & AGE_LOE) != 0;
+    }
+
+    public boolean hasUsernameContains() {
+        return (mask & USERNAME_CONTAINS) != 0;
+    }
+
+    public boolean hasUsernameStartsWith() {
+        return (mask & USERNAME_STARTS_WITH) != 0;
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner("+");
+        joiner.setEmptyValue("all");
+        if (hasUsername()) {
+            joiner.add("username");
+        }
+        if (hasTeamName()) {
+            joiner.add("teamName");
+        }
+        if (hasAgeGoe()) {
+            joiner.add("ageGoe");
+        }
+        if (hasAgeLoe()) {
+            joiner.add("ageLoe");
+        }
+        if (hasUsernameContains()) {
+            joiner.add("usernameContains");
+        }
+        if (hasUsernameStartsWith()) {
+            joiner.add("usernameStartsWith");
+        }
+        return joiner.toString();
+    }
+}
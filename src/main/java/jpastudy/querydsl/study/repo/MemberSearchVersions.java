@@ -0,0 +1,144 @@
+package jpastudy.querydsl.study.repo;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jpastudy.querydsl.study.dto.MemberSearchCondition;
+import jpastudy.querydsl.study.entity.BulkChangedEvent;
+import jpastudy.querydsl.study.entity.EntityChangedEvent;
+import jpastudy.querydsl.study.entity.Member;
+import jpastudy.querydsl.study.entity.MemberChangedEvent;
+import jpastudy.querydsl.study.entity.MemberState;
+import jpastudy.querydsl.study.entity.Team;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static jpastudy.querydsl.study.entity.QTeam.team;
+import static org.springframework.util.StringUtils.hasText;
+
+// 검색 결과가 바뀌었을 수 있을 때마다 올라가는 버전으로 조건별 ETag 를 만든다.
+// teamName 조건은 그 이름의 team 버전만 보고, 나머지 조건은 전체 버전을 본다.
+// 커밋 뒤에 올리므로 커밋 직후 아주 잠깐은 이전 ETag 로 304 가 나갈 수 있다.
+@Component
+public class MemberSearchVersions {
+
+    // 버전은 프로세스마다 따로 세므로 다른 인스턴스의 ETag 와 겹치지 않게 한다.
+    private final String instance = UUID.randomUUID().toString();
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate loadTransaction;
+
+    private final AtomicLong epoch = new AtomicLong();
+    private final AtomicLong global = new AtomicLong();
+    private final Map<Long, AtomicLong> byTeamId = new ConcurrentHashMap<>();
+    private final Map<Long, String> teamNames = new ConcurrentHashMap<>();
+    private volatile boolean teamsLoaded;
+
+    public MemberSearchVersions(JPAQueryFactory queryFactory,
+        PlatformTransactionManager transactionManager) {
+        this.queryFactory = queryFactory;
+        this.loadTransaction = new TransactionTemplate(transactionManager);
+        this.loadTransaction.setReadOnly(true);
+    }
+
+    public String etag(MemberSearchCondition condition, Pageable pageable) {
+        MemberSearchCondition key = MemberCountCache.normalize(condition);
+        StringBuilder token = new StringBuilder()
+            .append(instance).append('|')
+            .append(epoch.get()).append('|')
+            .append(key).append('|')
+            .append(pageable);
+        if (hasText(key.getTeamName())) {
+            for (Long teamId : teamIds(key.getTeamName())) {
+                token.append('|').append(teamId).append(':').append(teamVersion(teamId));
+            }
+        } else {
+            token.append('|').append(global.get());
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(
+            token.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    // 이름만 바뀐 경우도 여기로 오므로 username 변경까지 잡힌다.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        Object entity = event.getEntity();
+        if (entity instanceof Member) {
+            global.incrementAndGet();
+            bump(MemberState.of((Member) entity).getTeamId());
+        } else if (entity instanceof Team) {
+            Team changed = (Team) entity;
+            if (event.getType() == EntityChangedEvent.Type.REMOVED) {
+                teamNames.remove(changed.getId());
+            } else {
+                teamNames.put(changed.getId(), changed.getName());
+            }
+            global.incrementAndGet();
+            bump(changed.getId());
+        }
+    }
+
+    // team 을 옮기면 떠난 team 의 결과도 바뀐다.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMemberChanged(MemberChangedEvent event) {
+        if (event.getBefore() != null) {
+            bump(event.getBefore().getTeamId());
+        }
+        if (event.getAfter() != null) {
+            bump(event.getAfter().getTeamId());
+        }
+    }
+
+    // 벌크 변경은 어느 team 이 바뀌었는지 모르므로 모든 ETag 를 바꾼다.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBulkChanged(BulkChangedEvent event) {
+        epoch.incrementAndGet();
+    }
+
+    private Set<Long> teamIds(String teamName) {
+        if (!teamsLoaded) {
+            loadTeams();
+        }
+        Set<Long> ids = new TreeSet<>();
+        teamNames.forEach((id, name) -> {
+            if (teamName.equals(name)) {
+                ids.add(id);
+            }
+        });
+        return ids;
+    }
+
+    private synchronized void loadTeams() {
+        if (teamsLoaded) {
+            return;
+        }
+        loadTransaction.executeWithoutResult(status -> {
+            for (Tuple row : queryFactory.select(team.id, team.name).from(team).fetch()) {
+                teamNames.putIfAbsent(row.get(team.id), row.get(team.name));
+            }
+        });
+        teamsLoaded = true;
+    }
+
+    private long teamVersion(Long teamId) {
+        AtomicLong version = byTeamId.get(teamId);
+        return version != null ? version.get() : 0;
+    }
+
+    private void bump(Long teamId) {
+        if (teamId != null) {
+            byTeamId.computeIfAbsent(teamId, id -> new AtomicLong()).incrementAndGet();
+        }
+    }
+}
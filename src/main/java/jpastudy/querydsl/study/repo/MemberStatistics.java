@@ -0,0 +1,208 @@
+package jpastudy.querydsl.study.repo;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jpastudy.querydsl.study.config.MemberSearchProperties;
+import jpastudy.querydsl.study.dto.MemberSearchCondition;
+import jpastudy.querydsl.study.entity.BulkChangedEvent;
+import jpastudy.querydsl.study.entity.EntityChangedEvent;
+import jpastudy.querydsl.study.entity.Member;
+import jpastudy.querydsl.study.entity.MemberChangedEvent;
+import jpastudy.querydsl.study.entity.MemberState;
+import jpastudy.querydsl.study.entity.Team;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+
+import static jpastudy.querydsl.study.entity.QMember.member;
+import static jpastudy.querydsl.study.entity.QTeam.team;
+import static org.springframework.util.StringUtils.hasText;
+
+// team 별 나이 구간 히스토그램, 커밋된 Member 변경으로 증분 갱신하고 벌크 변경이나 refresh 주기마다 다시 집계한다.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MemberStatistics {
+
+    private static final long NO_TEAM = -1L;
+
+    private final JPAQueryFactory queryFactory;
+    private final MemberSearchProperties properties;
+
+    private final Object loadLock = new Object();
+    private volatile Snapshot snapshot;
+
+    // username 조건은 히스토그램으로 추정할 수 없다.
+    public OptionalLong estimate(MemberSearchCondition condition) {
+        MemberSearchShape shape = MemberSearchShape.of(condition);
+        if (!properties.getEstimate().isEnabled() || shape.hasUsername()
+            || shape.hasUsernameContains() || shape.hasUsernameStartsWith()) {
+            return OptionalLong.empty();
+        }
+        Snapshot current = current();
+        synchronized (current) {
+            return OptionalLong.of(Math.round(current.estimate(condition)));
+        }
+    }
+
+    public void invalidate() {
+        snapshot = null;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMemberChanged(MemberChangedEvent event) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return;
+        }
+        synchronized (current) {
+            if (event.getBefore() != null) {
+                current.add(event.getBefore(), -1);
+            }
+            if (event.getAfter() != null) {
+                current.add(event.getAfter(), 1);
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        Snapshot current = snapshot;
+        if (current == null || !(event.getEntity() instanceof Team)) {
+            return;
+        }
+        Team changed = (Team) event.getEntity();
+        synchronized (current) {
+            if (event.getType() == EntityChangedEvent.Type.REMOVED) {
+                current.teamNames.remove(changed.getId());
+            } else {
+                current.teamNames.put(changed.getId(), changed.getName());
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBulkChanged(BulkChangedEvent event) {
+        if (event.getEntityType() == Member.class) {
+            invalidate();
+        }
+    }
+
+    // 집계 중에 커밋된 변경은 빠지거나 두 번 반영될 수 있지만 추정치라 다음 refresh 까지 그대로 둔다.
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null && !current.isExpired()) {
+            return current;
+        }
+        synchronized (loadLock) {
+            current = snapshot;
+            if (current == null || current.isExpired()) {
+                current = load();
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    private Snapshot load() {
+        MemberSearchProperties.Estimate estimate = properties.getEstimate();
+        Snapshot loaded = new Snapshot(estimate.getAgeBucketWidth(),
+            System.nanoTime() + estimate.getRefreshInterval().toNanos());
+        for (Tuple row : queryFactory
+            .select(member.team.id, member.age, member.count())
+            .from(member)
+            .groupBy(member.team.id, member.age)
+            .fetch()) {
+            loaded.add(row.get(member.team.id), row.get(member.age), row.get(member.count()));
+        }
+        for (Tuple row : queryFactory.select(team.id, team.name).from(team).fetch()) {
+            loaded.teamNames.put(row.get(team.id), row.get(team.name));
+        }
+        log.debug("loaded member statistics for {} teams", loaded.teamNames.size());
+        return loaded;
+    }
+
+    private static class Snapshot {
+
+        private final int bucketWidth;
+        private final long expiresAt;
+        private final Histogram all;
+        private final Map<Long, Histogram> byTeam = new HashMap<>();
+        private final Map<Long, String> teamNames = new HashMap<>();
+
+        Snapshot(int bucketWidth, long expiresAt) {
+            this.bucketWidth = bucketWidth;
+            this.expiresAt = expiresAt;
+            this.all = new Histogram(bucketWidth);
+        }
+
+        boolean isExpired() {
+            return expiresAt - System.nanoTime() <= 0;
+        }
+
+        void add(MemberState state, long delta) {
+            add(state.getTeamId(), state.getAge(), delta);
+        }
+
+        void add(Long teamId, int age, long delta) {
+            all.add(age, delta);
+            byTeam.computeIfAbsent(teamId != null ? teamId : NO_TEAM,
+                id -> new Histogram(bucketWidth)).add(age, delta);
+        }
+
+        double estimate(MemberSearchCondition condition) {
+            if (!hasText(condition.getTeamName())) {
+                return all.estimate(condition.getAgeGoe(), condition.getAgeLoe());
+            }
+            double estimate = 0;
+            for (Map.Entry<Long, String> entry : teamNames.entrySet()) {
+                Histogram histogram = byTeam.get(entry.getKey());
+                if (histogram != null && condition.getTeamName().equals(entry.getValue())) {
+                    estimate += histogram.estimate(condition.getAgeGoe(), condition.getAgeLoe());
+                }
+            }
+            return estimate;
+        }
+    }
+
+    // 구간 안에서는 나이가 고르게 퍼져 있다고 보고 걸친 비율만큼 센다.
+    // 나이가 아주 큰 회원 하나 때문에 빈 구간까지 잡히지 않도록 회원이 있는 구간만 둔다.
+    private static class Histogram {
+
+        private final int width;
+        private final NavigableMap<Integer, Long> buckets = new TreeMap<>();
+
+        Histogram(int width) {
+            this.width = width;
+        }
+
+        void add(int age, long delta) {
+            int bucket = Math.max(age, 0) / width;
+            // 0 이 된 구간은 지운다.
+            buckets.merge(bucket, delta,
+                (count, added) -> count + added != 0 ? count + added : null);
+        }
+
+        double estimate(Integer ageGoe, Integer ageLoe) {
+            long from = ageGoe != null ? ageGoe : Long.MIN_VALUE;
+            long to = ageLoe != null ? ageLoe : Long.MAX_VALUE;
+            double estimate = 0;
+            for (Map.Entry<Integer, Long> entry : buckets.entrySet()) {
+                long start = (long) entry.getKey() * width;
+                long end = start + width - 1;
+                long overlap = Math.min(to, end) - Math.max(from, start) + 1;
+                if (overlap > 0) {
+                    estimate += entry.getValue() * (double) overlap / width;
+                }
+            }
+            return estimate;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package jpastudy.querydsl.study.repo;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jpastudy.querydsl.study.dto.QTeamStatsDto;
+import jpastudy.querydsl.study.dto.TeamStatsDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static jpastudy.querydsl.study.entity.QTeam.team;
+import static jpastudy.querydsl.study.entity.QTeamStats.teamStats;
+
+// member 를 훑지 않고 미리 집계된 team_stats 만 읽으므로 team 수에 비례한다.
+@Repository
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class TeamStatsRepo {
+
+    private final JPAQueryFactory queryFactory;
+
+    public List<TeamStatsDto> findAll() {
+        return query()
+            .orderBy(team.name.asc(), team.id.asc())
+            .fetch();
+    }
+
+    public List<TeamStatsDto> findByTeamName(String teamName) {
+        return query()
+            .where(team.name.eq(teamName))
+            .orderBy(team.id.asc())
+            .fetch();
+    }
+
+    private JPAQuery<TeamStatsDto> query() {
+        return queryFactory
+            .select(new QTeamStatsDto(
+                team.id,
+                team.name,
+                teamStats.memberCount,
+                teamStats.ageSum,
+                teamStats.minAge,
+                teamStats.maxAge))
+            .from(teamStats)
+            .join(team).on(team.id.eq(teamStats.teamId));
+    }
+}
@@ -0,0 +1,273 @@
+package jpastudy.querydsl.study.repo;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jpastudy.querydsl.study.config.MemberSearchProperties;
+import jpastudy.querydsl.study.entity.BulkChangedEvent;
+import jpastudy.querydsl.study.entity.EntityChangedEvent;
+import jpastudy.querydsl.study.entity.Member;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static jpastudy.querydsl.study.entity.QMember.member;
+
+// username 으로 member id 후보를 찾는 메모리 색인, 접두어는 정렬된 map 으로, 부분 문자열은 trigram 으로 찾는다.
+// 색인으로 답할 수 없으면(비활성, 쓰기 트랜잭션, 너무 짧은 검색어, 후보 초과) 비워서 돌려주고 호출자가 like 로 검색한다.
+@Slf4j
+@Component
+public class UsernameIndex {
+
+    private static final int GRAM = 3;
+
+    private final JPAQueryFactory queryFactory;
+    private final MemberSearchProperties properties;
+    private final TransactionTemplate loadTransaction;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private boolean loaded;
+    private final Map<Long, String> usernameById = new HashMap<>();
+    private final TreeMap<String, Set<Long>> idsByUsername = new TreeMap<>();
+    private final Map<String, Set<String>> usernamesByGram = new HashMap<>();
+
+    public UsernameIndex(JPAQueryFactory queryFactory, MemberSearchProperties properties,
+        PlatformTransactionManager transactionManager) {
+        this.queryFactory = queryFactory;
+        this.properties = properties;
+        this.loadTransaction = new TransactionTemplate(transactionManager);
+        this.loadTransaction.setReadOnly(true);
+        this.loadTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public Optional<List<Long>> startingWith(String prefix) {
+        if (!isAvailable()) {
+            return Optional.empty();
+        }
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            List<Long> ids = new ArrayList<>();
+            for (Set<Long> matched : idsByUsername
+                .subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+                ids.addAll(matched);
+                if (ids.size() > maxCandidates()) {
+                    return Optional.empty();
+                }
+            }
+            return Optional.of(ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 검색어의 trigram 목록을 작은 것부터 교집합한 뒤 실제 포함 여부로 거짓 양성을 걸러낸다.
+    public Optional<List<Long>> containing(String text) {
+        if (text.length() < GRAM || !isAvailable()) {
+            return Optional.empty();
+        }
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            List<Set<String>> postings = new ArrayList<>();
+            for (String gram : grams(text)) {
+                Set<String> posting = usernamesByGram.get(gram);
+                if (posting == null) {
+                    return Optional.of(Collections.emptyList());
+                }
+                postings.add(posting);
+            }
+            postings.sort(Comparator.comparingInt(Set::size));
+
+            List<Long> ids = new ArrayList<>();
+            for (String username : postings.get(0)) {
+                if (!username.contains(text) || !inAll(username, postings)) {
+                    continue;
+                }
+                ids.addAll(idsByUsername.get(username));
+                if (ids.size() > maxCandidates()) {
+                    return Optional.empty();
+                }
+            }
+            return Optional.of(ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            loaded = false;
+            usernameById.clear();
+            idsByUsername.clear();
+            usernamesByGram.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        Member changed = (Member) event.getEntity();
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                return;
+            }
+            if (event.getType() == EntityChangedEvent.Type.REMOVED) {
+                remove(changed.getId());
+            } else {
+                put(changed.getId(), changed.getUsername());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 벌크 update 로 username 이 바뀌었을 수 있으므로 해당 id 만 다시 읽는다.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBulkChanged(BulkChangedEvent event) {
+        if (event.getEntityType() != Member.class || !isLoaded()) {
+            return;
+        }
+        List<Tuple> rows = event.getType() == EntityChangedEvent.Type.REMOVED
+            ? Collections.emptyList()
+            : loadTransaction.execute(status -> queryFactory
+                .select(member.id, member.username)
+                .from(member)
+                .where(member.id.in(event.getIds()))
+                .fetch());
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                return;
+            }
+            event.getIds().forEach(this::remove);
+            rows.forEach(row -> put(row.get(member.id), row.get(member.username)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 쓰기 트랜잭션 안에서는 커밋되지 않은 username 이 색인에 없다.
+    private boolean isAvailable() {
+        return properties.getUsernameIndex().isEnabled()
+            && (!TransactionSynchronizationManager.isActualTransactionActive()
+            || TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+    }
+
+    private int maxCandidates() {
+        return properties.getUsernameIndex().getMaxCandidates();
+    }
+
+    private boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return loaded;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (isLoaded()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+            long started = System.currentTimeMillis();
+            loadTransaction.executeWithoutResult(status -> {
+                for (Tuple row : queryFactory
+                    .select(member.id, member.username)
+                    .from(member)
+                    .fetch()) {
+                    put(row.get(member.id), row.get(member.username));
+                }
+            });
+            loaded = true;
+            log.info("loaded username index with {} members, {} usernames in {}ms",
+                usernameById.size(), idsByUsername.size(), System.currentTimeMillis() - started);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(Long id, String username) {
+        String previous = usernameById.get(id);
+        if (previous != null && previous.equals(username)) {
+            return;
+        }
+        remove(id);
+        if (username == null) {
+            return;
+        }
+        usernameById.put(id, username);
+        Set<Long> ids = idsByUsername.computeIfAbsent(username, k -> new TreeSet<>());
+        if (ids.isEmpty()) {
+            for (String gram : grams(username)) {
+                usernamesByGram.computeIfAbsent(gram, k -> new HashSet<>()).add(username);
+            }
+        }
+        ids.add(id);
+    }
+
+    private void remove(Long id) {
+        String username = usernameById.remove(id);
+        if (username == null) {
+            return;
+        }
+        Set<Long> ids = idsByUsername.get(username);
+        ids.remove(id);
+        if (!ids.isEmpty()) {
+            return;
+        }
+        idsByUsername.remove(username);
+        for (String gram : grams(username)) {
+            Set<String> posting = usernamesByGram.get(gram);
+            posting.remove(username);
+            if (posting.isEmpty()) {
+                usernamesByGram.remove(gram);
+            }
+        }
+    }
+
+    private static boolean inAll(String username, List<Set<String>> postings) {
+        for (int i = 1; i < postings.size(); i++) {
+            if (!postings.get(i).contains(username)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Set<String> grams(String value) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+}
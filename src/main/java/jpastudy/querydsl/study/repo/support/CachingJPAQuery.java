@@ -0,0 +1,33 @@
+package jpastudy.querydsl.study.repo.support;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+
+import javax.persistence.EntityManager;
+
+public class CachingJPAQuery<T> extends JPAQuery<T> {
+
+    private final JpqlCache cache;
+
+    public CachingJPAQuery(EntityManager em, JPQLTemplates templates, QueryMetadata metadata,
+        JpqlCache cache) {
+        super(em, templates, metadata);
+        this.cache = cache;
+    }
+
+    @Override
+    protected JPQLSerializer serialize(boolean forCountRow) {
+        return cache.serialize(getMetadata(), forCountRow, () -> super.serialize(forCountRow),
+            getTemplates(), entityManager);
+    }
+
+    @Override
+    public CachingJPAQuery<T> clone(EntityManager entityManager, JPQLTemplates templates) {
+        CachingJPAQuery<T> q = new CachingJPAQuery<>(entityManager, templates,
+            getMetadata().clone(), cache);
+        q.clone(this);
+        return q;
+    }
+}
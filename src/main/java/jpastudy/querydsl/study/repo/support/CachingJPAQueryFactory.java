@@ -0,0 +1,32 @@
+package jpastudy.querydsl.study.repo.support;
+
+import com.querydsl.core.DefaultQueryMetadata;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import javax.persistence.EntityManager;
+
+public class CachingJPAQueryFactory extends JPAQueryFactory {
+
+    private final EntityManager em;
+    private final JPQLTemplates templates;
+    private final JpqlCache cache;
+
+    public CachingJPAQueryFactory(EntityManager em, JpqlCache cache) {
+        this(JPAProvider.getTemplates(em), em, cache);
+    }
+
+    public CachingJPAQueryFactory(JPQLTemplates templates, EntityManager em, JpqlCache cache) {
+        super(templates, em);
+        this.em = em;
+        this.templates = templates;
+        this.cache = cache;
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        return new CachingJPAQuery<>(em, templates, new DefaultQueryMetadata(), cache);
+    }
+}
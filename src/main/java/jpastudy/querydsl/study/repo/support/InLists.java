@@ -0,0 +1,32 @@
+package jpastudy.querydsl.study.repo.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+public final class InLists {
+
+    private InLists() {
+    }
+
+    // IN 절 길이를 2의 거듭제곱으로 맞춰서 statement/plan 캐시에 남는 모양을 몇 개로 줄인다.
+    public static <T> List<List<T>> paddedChunks(Collection<T> values, int maxChunkSize) {
+        if (Integer.bitCount(maxChunkSize) != 1) {
+            throw new IllegalArgumentException("maxChunkSize must be a power of two: " + maxChunkSize);
+        }
+        List<T> distinct = new ArrayList<>(new LinkedHashSet<>(values));
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += maxChunkSize) {
+            List<T> chunk = new ArrayList<>(
+                distinct.subList(from, Math.min(from + maxChunkSize, distinct.size())));
+            T last = chunk.get(chunk.size() - 1);
+            int padded = Integer.highestOneBit(chunk.size() - 1) << 1;
+            while (chunk.size() < padded) {
+                chunk.add(last);
+            }
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+}
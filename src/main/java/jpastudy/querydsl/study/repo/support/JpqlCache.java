@@ -0,0 +1,135 @@
+package jpastudy.querydsl.study.repo.support;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.JPQLTemplates;
+import lombok.RequiredArgsConstructor;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import javax.persistence.EntityManager;
+
+public class JpqlCache {
+
+    private static final Entry UNCACHEABLE = new Entry(null, null);
+
+    private final int maxEntries;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bypasses = new LongAdder();
+
+    public JpqlCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    JPQLSerializer serialize(QueryMetadata metadata, boolean forCountRow,
+        Supplier<JPQLSerializer> serializer, JPQLTemplates templates, EntityManager em) {
+        JpqlFingerprint fingerprint = JpqlFingerprint.of(metadata, forCountRow);
+        if (!fingerprint.isCacheable()) {
+            bypasses.increment();
+            return serializer.get();
+        }
+
+        Entry entry = entries.get(fingerprint.getKey());
+        if (entry == UNCACHEABLE) {
+            bypasses.increment();
+            return serializer.get();
+        }
+        if (entry != null) {
+            hits.increment();
+            return new CachedSerializer(templates, em, entry.jpql,
+                entry.labels(fingerprint.getSlots()));
+        }
+
+        misses.increment();
+        JPQLSerializer serialized = serializer.get();
+        if (entries.size() < maxEntries) {
+            entries.put(fingerprint.getKey(), Entry.of(serialized, fingerprint.getSlots()));
+        }
+        return serialized;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getBypassCount() {
+        return bypasses.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    @RequiredArgsConstructor
+    private static class Entry {
+
+        private final String jpql;
+        private final String[] slotLabels;
+
+        // 슬롯마다 라벨을 찾을 수 없거나 사용되지 않은 라벨이 남으면 직렬화 중 상수가 변형된 것이다.
+        static Entry of(JPQLSerializer serializer, List<Object> slots) {
+            Map<Object, String> labels = serializer.getConstantToAllLabels();
+            String[] slotLabels = new String[slots.size()];
+            Set<String> covered = new HashSet<>();
+            for (int i = 0; i < slotLabels.length; i++) {
+                String label = labels.get(slots.get(i));
+                if (label == null) {
+                    return UNCACHEABLE;
+                }
+                slotLabels[i] = label;
+                covered.add(label);
+            }
+            if (!covered.containsAll(labels.values())) {
+                return UNCACHEABLE;
+            }
+            return new Entry(serializer.toString(), slotLabels);
+        }
+
+        Map<Object, String> labels(List<Object> slots) {
+            Map<Object, String> labels = new HashMap<>();
+            for (int i = 0; i < slotLabels.length; i++) {
+                labels.put(slots.get(i), slotLabels[i]);
+            }
+            return labels;
+        }
+    }
+
+    private static class CachedSerializer extends JPQLSerializer {
+
+        private final String jpql;
+        private final Map<Object, String> labels;
+
+        CachedSerializer(JPQLTemplates templates, EntityManager em, String jpql,
+            Map<Object, String> labels) {
+            super(templates, em);
+            this.jpql = jpql;
+            this.labels = labels;
+        }
+
+        @Override
+        public Map<Object, String> getConstantToAllLabels() {
+            return labels;
+        }
+
+        @Override
+        public String toString() {
+            return jpql;
+        }
+    }
+}
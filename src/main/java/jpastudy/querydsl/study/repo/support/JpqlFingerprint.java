@@ -0,0 +1,185 @@
+package jpastudy.querydsl.study.repo.support;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinFlag;
+import com.querydsl.core.QueryFlag;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Operator;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 쿼리 구조를 문자열 키로 만든다. 상수 값은 키에 넣지 않고 순서대로 {@link #getSlots()} 에 모아
+ * 바인드 파라미터로 다시 연결한다. 같은 값을 가진 상수는 직렬화 시 하나의 파라미터로 합쳐지므로
+ * 그 패턴(#n)은 키에 포함한다.
+ */
+final class JpqlFingerprint implements Visitor<Void, Void> {
+
+    // 직렬화 과정에서 상수 값 자체를 바꾸는 연산자들
+    private static final Set<Operator> VALUE_REWRITING_OPS = Set.of(
+        Ops.LIKE, Ops.LIKE_IC, Ops.LIKE_ESCAPE, Ops.LIKE_ESCAPE_IC,
+        Ops.MATCHES, Ops.MATCHES_IC, Ops.NUMCAST);
+
+    private final StringBuilder key = new StringBuilder(256);
+    private final List<Object> slots = new ArrayList<>();
+    private boolean cacheable = true;
+
+    private JpqlFingerprint() {
+    }
+
+    static JpqlFingerprint of(QueryMetadata metadata, boolean forCountRow) {
+        JpqlFingerprint fingerprint = new JpqlFingerprint();
+        fingerprint.key.append(forCountRow ? "C|" : "R|");
+        fingerprint.metadata(metadata);
+        return fingerprint;
+    }
+
+    String getKey() {
+        return key.toString();
+    }
+
+    List<Object> getSlots() {
+        return slots;
+    }
+
+    boolean isCacheable() {
+        return cacheable;
+    }
+
+    private void metadata(QueryMetadata metadata) {
+        key.append(metadata.isDistinct() ? "distinct " : "select ");
+        append(metadata.getProjection());
+        key.append("|from ");
+        for (JoinExpression join : metadata.getJoins()) {
+            key.append(join.getType()).append(' ');
+            append(join.getTarget());
+            for (JoinFlag flag : join.getFlags()) {
+                key.append(' ').append(flag.getPosition()).append(' ');
+                append(flag.getFlag());
+            }
+            if (join.getCondition() != null) {
+                key.append(" on ");
+                append(join.getCondition());
+            }
+            key.append(';');
+        }
+        key.append("|where ");
+        append(metadata.getWhere());
+        key.append("|group ");
+        for (Expression<?> groupBy : metadata.getGroupBy()) {
+            append(groupBy);
+            key.append(',');
+        }
+        key.append("|having ");
+        append(metadata.getHaving());
+        key.append("|order ");
+        for (OrderSpecifier<?> order : metadata.getOrderBy()) {
+            append(order.getTarget());
+            key.append(' ').append(order.getOrder()).append(' ').append(order.getNullHandling())
+                .append(',');
+        }
+        key.append("|flags ");
+        for (QueryFlag flag : metadata.getFlags()) {
+            key.append(flag.getPosition()).append(' ');
+            append(flag.getFlag());
+            key.append(',');
+        }
+    }
+
+    private void append(Expression<?> expr) {
+        if (expr == null) {
+            key.append('-');
+        } else {
+            expr.accept(this, null);
+        }
+    }
+
+    private void appendArgs(List<?> args) {
+        key.append('(');
+        for (Object arg : args) {
+            if (arg instanceof Expression) {
+                append((Expression<?>) arg);
+            } else {
+                // 템플릿의 비표현식 인자는 JPQL 에 그대로 인라인된다.
+                key.append('\'').append(arg).append('\'');
+            }
+            key.append(',');
+        }
+        key.append(')');
+    }
+
+    @Override
+    public Void visit(Constant<?> expr, Void context) {
+        Object value = expr.getConstant();
+        key.append('?').append(value.getClass().getName());
+        if (value instanceof Collection) {
+            Collection<?> values = (Collection<?>) value;
+            key.append(values.isEmpty()
+                ? "[]"
+                : "[" + values.iterator().next().getClass().getName() + "]");
+        }
+        int first = slots.indexOf(value);
+        key.append('#').append(first < 0 ? slots.size() : first);
+        slots.add(value);
+        return null;
+    }
+
+    @Override
+    public Void visit(FactoryExpression<?> expr, Void context) {
+        key.append("new ").append(expr.getType().getName());
+        appendArgs(expr.getArgs());
+        return null;
+    }
+
+    @Override
+    public Void visit(Operation<?> expr, Void context) {
+        if (VALUE_REWRITING_OPS.contains(expr.getOperator())) {
+            cacheable = false;
+        }
+        key.append(expr.getOperator().name());
+        appendArgs(expr.getArgs());
+        return null;
+    }
+
+    @Override
+    public Void visit(ParamExpression<?> expr, Void context) {
+        key.append(':').append(expr.getName()).append(':').append(expr.getType().getName());
+        slots.add(expr);
+        return null;
+    }
+
+    @Override
+    public Void visit(Path<?> expr, Void context) {
+        key.append(expr).append(':').append(expr.getType().getName());
+        return null;
+    }
+
+    @Override
+    public Void visit(SubQueryExpression<?> expr, Void context) {
+        key.append("sub(");
+        metadata(expr.getMetadata());
+        key.append(')');
+        return null;
+    }
+
+    @Override
+    public Void visit(TemplateExpression<?> expr, Void context) {
+        key.append('[').append(expr.getTemplate()).append(']');
+        appendArgs(expr.getArgs());
+        return null;
+    }
+}
@@ -0,0 +1,25 @@
+package jpastudy.querydsl.study.repo.support;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+// 주석, 리터럴, in 목록 길이를 지워서 파라미터만 다른 SQL 을 같은 모양으로 묶는다.
+public final class SqlShape {
+
+    private static final Pattern COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern STRING = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER = Pattern.compile("\\b\\d+\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern SPACE = Pattern.compile("\\s+");
+
+    private SqlShape() {
+    }
+
+    public static String of(String sql) {
+        String shape = COMMENT.matcher(sql).replaceAll(" ");
+        shape = STRING.matcher(shape).replaceAll("?");
+        shape = NUMBER.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("(?)");
+        return SPACE.matcher(shape).replaceAll(" ").trim().toLowerCase(Locale.ROOT);
+    }
+}
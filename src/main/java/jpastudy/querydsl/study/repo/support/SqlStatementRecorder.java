@@ -0,0 +1,100 @@
+package jpastudy.querydsl.study.repo.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// hibernate.session_factory.statement_inspector 로 등록해서 Hibernate 가 준비하는 SQL 을 현재 스레드의 기록에 남긴다.
+// 기록은 start 한 스레드에 쌓이고, propagate 로 감싼 executor 작업의 쿼리는 작업을 넘긴 스레드의 기록에 남는다.
+public class SqlStatementRecorder implements StatementInspector {
+
+    private static final ThreadLocal<Deque<Recording>> RECORDINGS =
+        ThreadLocal.withInitial(ArrayDeque::new);
+
+    public static Recording start() {
+        Recording recording = new Recording();
+        RECORDINGS.get().push(recording);
+        return recording;
+    }
+
+    // executor 의 TaskDecorator 로 건다. 작업을 넘길 때 열려 있던 기록을 작업 스레드에서도 이어서 쓴다.
+    public static Runnable propagate(Runnable task) {
+        List<Recording> current = new ArrayList<>(RECORDINGS.get());
+        if (current.isEmpty()) {
+            RECORDINGS.remove();
+            return task;
+        }
+        return () -> {
+            Deque<Recording> recordings = RECORDINGS.get();
+            current.forEach(recordings::push);
+            try {
+                task.run();
+            } finally {
+                current.forEach(recordings::remove);
+                if (recordings.isEmpty()) {
+                    RECORDINGS.remove();
+                }
+            }
+        };
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Deque<Recording> recordings = RECORDINGS.get();
+        if (!recordings.isEmpty()) {
+            for (Recording recording : recordings) {
+                recording.statements.add(sql);
+            }
+        }
+        return sql;
+    }
+
+    public static class Recording implements AutoCloseable {
+
+        // propagate 된 executor 스레드에서도 쌓이므로 동기화한다.
+        private final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+
+        private Recording() {
+        }
+
+        public List<String> getStatements() {
+            synchronized (statements) {
+                return List.copyOf(statements);
+            }
+        }
+
+        public int count() {
+            return statements.size();
+        }
+
+        public int selectCount() {
+            return (int) getStatements().stream()
+                .map(SqlShape::of)
+                .filter(shape -> shape.startsWith("select"))
+                .count();
+        }
+
+        // 같은 모양의 SQL 이 몇 번 나갔는지, 처음 나온 순서대로
+        public Map<String, Integer> countByShape() {
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            for (String statement : getStatements()) {
+                counts.merge(SqlShape.of(statement), 1, Integer::sum);
+            }
+            return counts;
+        }
+
+        @Override
+        public void close() {
+            RECORDINGS.get().remove(this);
+            if (RECORDINGS.get().isEmpty()) {
+                RECORDINGS.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package jpastudy.querydsl.study.service;
+
+import jpastudy.querydsl.study.dto.MemberSearchCondition;
+import jpastudy.querydsl.study.dto.MemberTeamDto;
+import jpastudy.querydsl.study.repo.MemberRepo;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+@Service
+public class MemberAsyncSearchService {
+
+    private final MemberRepo memberRepo;
+    private final Executor searchExecutor;
+
+    public MemberAsyncSearchService(MemberRepo memberRepo,
+        @Qualifier("memberSearchExecutor") Executor memberSearchExecutor) {
+        this.memberRepo = memberRepo;
+        this.searchExecutor = memberSearchExecutor;
+    }
+
+    public CompletableFuture<List<MemberTeamDto>> search(MemberSearchCondition condition) {
+        return CompletableFuture.supplyAsync(() -> memberRepo.search(condition), searchExecutor);
+    }
+
+    public CompletableFuture<Slice<MemberTeamDto>> searchSlice(MemberSearchCondition condition,
+        Pageable pageable) {
+        return CompletableFuture
+            .supplyAsync(() -> memberRepo.searchSlice(condition, pageable), searchExecutor);
+    }
+}
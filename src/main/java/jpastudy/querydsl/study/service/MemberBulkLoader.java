@@ -0,0 +1,112 @@
+package jpastudy.querydsl.study.service;
+
+import jpastudy.querydsl.study.config.MemberBulkProperties;
+import jpastudy.querydsl.study.entity.BulkChangedEvent;
+import jpastudy.querydsl.study.entity.EntityChangeListener;
+import jpastudy.querydsl.study.entity.EntityChangedEvent;
+import jpastudy.querydsl.study.entity.Member;
+import jpastudy.querydsl.study.entity.Team;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.EntityManager;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MemberBulkLoader {
+
+    private final EntityManager em;
+    private final PlatformTransactionManager transactionManager;
+    private final MemberBulkProperties properties;
+    private final ApplicationEventPublisher publisher;
+
+    public long load(List<String> teamNames, int memberCount) {
+        long started = System.currentTimeMillis();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        List<Long> teamIds = tx.execute(status -> persistTeams(teamNames));
+
+        int chunkSize = properties.getChunkSize();
+        for (int start = 0; start < memberCount; start += chunkSize) {
+            int from = start;
+            int to = Math.min(from + chunkSize, memberCount);
+            tx.executeWithoutResult(status -> persistMembers(teamIds, from, to));
+            log.debug("loaded members {}/{}", to, memberCount);
+        }
+        log.info("loaded {} teams, {} members in {}ms", teamNames.size(), memberCount,
+            System.currentTimeMillis() - started);
+        return memberCount;
+    }
+
+    private List<Long> persistTeams(List<String> teamNames) {
+        List<Long> teamIds = new ArrayList<>(teamNames.size());
+        for (String teamName : teamNames) {
+            Team team = new Team(teamName);
+            em.persist(team);
+            teamIds.add(team.getId());
+        }
+        return teamIds;
+    }
+
+    // 행마다 엔티티 이벤트와 2차 캐시 put 을 하지 않고, chunk 마다 BulkChangedEvent 하나로 알린다.
+    private void persistMembers(List<Long> teamIds, int from, int to) {
+        ignoreSecondLevelCache();
+        List<Long> ids = new ArrayList<>(to - from);
+        EntityChangeListener.withoutEvents(() -> {
+            List<Team> teams = teamReferences(teamIds);
+            int batchSize = properties.getBatchSize();
+            for (int i = from; i < to; i++) {
+                // changeTeam 은 프록시를 초기화하므로 team 을 읽지 않도록 연관관계 주인 쪽만 채운다.
+                Member loaded = new Member("member" + i, i % 100);
+                if (!teams.isEmpty()) {
+                    loaded.setTeam(teams.get(i % teams.size()));
+                }
+                em.persist(loaded);
+                ids.add(loaded.getId());
+                if ((i - from + 1) % batchSize == 0) {
+                    em.flush();
+                    em.clear();
+                    teams = teamReferences(teamIds);
+                }
+            }
+            em.flush();
+            em.clear();
+        });
+        publisher.publishEvent(new BulkChangedEvent(Member.class, ids,
+            EntityChangedEvent.Type.PERSISTED));
+    }
+
+    // READ_WRITE 캐시는 커밋 뒤에 put 하므로 트랜잭션이 끝날 때까지 IGNORE 를 유지한다.
+    private void ignoreSecondLevelCache() {
+        Session session = em.unwrap(Session.class);
+        CacheMode previous = session.getCacheMode();
+        if (previous == CacheMode.IGNORE) {
+            return;
+        }
+        session.setCacheMode(CacheMode.IGNORE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                session.setCacheMode(previous);
+            }
+        });
+    }
+
+    private List<Team> teamReferences(List<Long> teamIds) {
+        List<Team> teams = new ArrayList<>(teamIds.size());
+        for (Long teamId : teamIds) {
+            teams.add(em.getReference(Team.class, teamId));
+        }
+        return teams;
+    }
+}
@@ -0,0 +1,187 @@
+package jpastudy.querydsl.study.service;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jpastudy.querydsl.study.config.MemberBulkProperties;
+import jpastudy.querydsl.study.entity.BulkChangedEvent;
+import jpastudy.querydsl.study.entity.EntityChangedEvent;
+import jpastudy.querydsl.study.entity.Member;
+import jpastudy.querydsl.study.entity.Team;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.query.NativeQuery;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+
+import static jpastudy.querydsl.study.entity.QMember.member;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MemberBulkOperations {
+
+    private static final String BULK_QUERY_SPACE = "member_bulk";
+    private static final String TEAM_MEMBERS = Team.class.getName() + ".members";
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final PlatformTransactionManager transactionManager;
+    private final ApplicationEventPublisher publisher;
+    private final MemberBulkProperties properties;
+
+    public long addAge(Predicate where, int amount) {
+        return execute(where, ids -> nativeStatement(
+            "update member set age = age + :amount where member_id in (:ids)")
+            .setParameter("amount", amount)
+            .setParameter("ids", ids)
+            .executeUpdate(), EntityChangedEvent.Type.UPDATED);
+    }
+
+    public long delete(Predicate where) {
+        return execute(where, ids -> nativeStatement(
+            "delete from member where member_id in (:ids)")
+            .setParameter("ids", ids)
+            .executeUpdate(), EntityChangedEvent.Type.REMOVED);
+    }
+
+    // id 순으로 chunk 를 잘라 chunk 마다 트랜잭션을 나눠서 잠금 시간과 undo 크기를 묶어둔다.
+    // 조건은 id 를 고를 때 한 번만 보고, 고른 행은 잠가서 update/delete 전에 바뀌지 않게 한다.
+    // 호출자가 트랜잭션을 열고 있으면 그 안에서 실행된다.
+    private long execute(Predicate where, ChunkStatement statement,
+        EntityChangedEvent.Type type) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        int chunkSize = properties.getOperationChunkSize();
+        long affected = 0;
+        long lastId = 0;
+        while (true) {
+            long after = lastId;
+            ChunkResult chunk = tx.execute(status -> {
+                List<Tuple> rows = queryFactory
+                    .select(member.id, member.team.id)
+                    .from(member)
+                    .where(where, member.id.gt(after))
+                    .orderBy(member.id.asc())
+                    .limit(chunkSize)
+                    .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                    .fetch();
+                if (rows.isEmpty()) {
+                    return null;
+                }
+                List<Long> ids = new ArrayList<>(rows.size());
+                Set<Long> teamIds = new HashSet<>();
+                for (Tuple row : rows) {
+                    ids.add(row.get(member.id));
+                    if (row.get(member.team.id) != null) {
+                        teamIds.add(row.get(member.team.id));
+                    }
+                }
+                long changed = statement.execute(ids);
+                evict(ids, type);
+                evictSecondLevelCache(ids, type == EntityChangedEvent.Type.REMOVED
+                    ? teamIds : Collections.emptySet());
+                publisher.publishEvent(new BulkChangedEvent(Member.class, ids, type));
+                return new ChunkResult(ids.get(ids.size() - 1), changed,
+                    ids.size() < chunkSize);
+            });
+            if (chunk == null) {
+                break;
+            }
+            affected += chunk.rows;
+            lastId = chunk.lastId;
+            log.debug("bulk {} members up to id {} ({} rows)", type, lastId, affected);
+            if (chunk.last) {
+                break;
+            }
+        }
+        return affected;
+    }
+
+    // HQL 이나 entity 와 동기화된 native 벌크 쿼리는 Hibernate 가 Member, Team.members 캐시 영역 전체를 비운다.
+    // 어느 entity 테이블과도 겹치지 않는 query space 로 실행하고 캐시는 evictSecondLevelCache 에서 직접 맞춘다.
+    private NativeQuery<?> nativeStatement(String sql) {
+        return em.unwrap(Session.class)
+            .createNativeQuery(sql)
+            .addSynchronizedQuerySpace(BULK_QUERY_SPACE);
+    }
+
+    // 영속성 컨텍스트 전체를 clear 하지 않고 영향받은 Member 만 떼어낸다.
+    private void evict(List<Long> ids, EntityChangedEvent.Type type) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        PersistenceContext persistenceContext = session.getPersistenceContextInternal();
+        EntityPersister persister = session.getFactory().getMetamodel()
+            .entityPersister(Member.class);
+        for (Long id : ids) {
+            Object managed = persistenceContext.getEntity(session.generateEntityKey(id, persister));
+            if (managed == null) {
+                continue;
+            }
+            Member found = (Member) managed;
+            if (type == EntityChangedEvent.Type.REMOVED && found.getTeam() != null
+                && Hibernate.isInitialized(found.getTeam())
+                && Hibernate.isInitialized(found.getTeam().getMembers())) {
+                found.getTeam().getMembers().remove(found);
+            }
+            em.detach(found);
+        }
+    }
+
+    // 영향받은 Member 와, 삭제라면 그 회원이 속했던 team 의 members 컬렉션만 2차 캐시에서 뺀다.
+    // 커밋 전에 다른 트랜잭션이 이전 값을 다시 넣을 수 있으므로 커밋 뒤에 한 번 더 뺀다.
+    // query cache 는 Hibernate 벌크 쿼리와 같이 member 테이블 timestamp 로 무효화한다.
+    private void evictSecondLevelCache(List<Long> ids, Set<Long> teamIds) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        SessionFactoryImplementor factory = session.getFactory();
+        Runnable evict = () -> {
+            ids.forEach(id -> factory.getCache().evictEntityData(Member.class, id));
+            teamIds.forEach(teamId -> factory.getCache().evictCollectionData(TEAM_MEMBERS, teamId));
+        };
+        evict.run();
+
+        Serializable[] spaces = factory.getMetamodel().entityPersister(Member.class)
+            .getQuerySpaces();
+        boolean queryCache = factory.getSessionFactoryOptions().isQueryCacheEnabled();
+        if (queryCache) {
+            factory.getCache().getTimestampsCache().preInvalidate(spaces, session);
+        }
+        session.getActionQueue().registerProcess(
+            (AfterTransactionCompletionProcess) (success, completed) -> {
+                evict.run();
+                if (queryCache) {
+                    factory.getCache().getTimestampsCache().invalidate(spaces, completed);
+                }
+            });
+    }
+
+    @FunctionalInterface
+    private interface ChunkStatement {
+
+        long execute(List<Long> ids);
+    }
+
+    @RequiredArgsConstructor
+    private static class ChunkResult {
+
+        private final long lastId;
+        private final long rows;
+        private final boolean last;
+    }
+}
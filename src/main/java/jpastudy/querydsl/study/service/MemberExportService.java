@@ -0,0 +1,98 @@
+package jpastudy.querydsl.study.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mysema.commons.lang.CloseableIterator;
+import jpastudy.querydsl.study.config.MemberSearchProperties;
+import jpastudy.querydsl.study.dto.MemberSearchCondition;
+import jpastudy.querydsl.study.dto.MemberTeamDto;
+import jpastudy.querydsl.study.repo.MemberSearchPredicates;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import javax.persistence.EntityManager;
+
+import static jpastudy.querydsl.study.entity.QMember.member;
+
+@Service
+@RequiredArgsConstructor
+public class MemberExportService {
+
+    private final EntityManager em;
+    private final MemberSearchPredicates predicates;
+    private final MemberSearchProperties properties;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(readOnly = true)
+    public long export(MemberSearchCondition condition, MemberExportFormat format,
+        OutputStream out) throws IOException {
+        MemberSearchProperties.Stream stream = properties.getStream();
+        CloseableIterator<MemberTeamDto> rows = predicates.contentQuery(condition)
+            .orderBy(member.id.asc())
+            .setHint(QueryHints.FETCH_SIZE, stream.getFetchSize())
+            .setHint(QueryHints.READ_ONLY, true)
+            .iterate();
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        long count = 0;
+        // AUTO_CLOSE_TARGET 을 꺼 두었으므로 generator 를 닫아도 응답 스트림은 열려 있다.
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(writer)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+            json.setRootValueSeparator(null);
+            if (format == MemberExportFormat.CSV) {
+                writer.write("memberId,username,age,teamId,teamName\n");
+            }
+            while (rows.hasNext()) {
+                MemberTeamDto row = rows.next();
+                if (format == MemberExportFormat.CSV) {
+                    writeCsv(writer, row);
+                } else {
+                    objectMapper.writeValue(json, row);
+                    json.flush();
+                    writer.write('\n');
+                }
+                if (++count % stream.getClearInterval() == 0) {
+                    em.clear();
+                    writer.flush();
+                }
+            }
+        } finally {
+            rows.close();
+        }
+        writer.flush();
+        return count;
+    }
+
+    private void writeCsv(Writer writer, MemberTeamDto row) throws IOException {
+        writer.write(String.valueOf(row.getMemberId()));
+        writer.write(',');
+        writer.write(csv(row.getUsername()));
+        writer.write(',');
+        writer.write(String.valueOf(row.getAge()));
+        writer.write(',');
+        writer.write(row.getTeamId() != null ? String.valueOf(row.getTeamId()) : "");
+        writer.write(',');
+        writer.write(csv(row.getTeamName()));
+        writer.write('\n');
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+            && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
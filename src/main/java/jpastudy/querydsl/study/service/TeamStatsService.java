@@ -0,0 +1,274 @@
+package jpastudy.querydsl.study.service;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jpastudy.querydsl.study.entity.BulkChangedEvent;
+import jpastudy.querydsl.study.entity.EntityChangedEvent;
+import jpastudy.querydsl.study.entity.Member;
+import jpastudy.querydsl.study.entity.MemberChangedEvent;
+import jpastudy.querydsl.study.entity.MemberState;
+import jpastudy.querydsl.study.entity.Team;
+import jpastudy.querydsl.study.entity.TeamStats;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+
+import static jpastudy.querydsl.study.entity.QMember.member;
+import static jpastudy.querydsl.study.entity.QTeam.team;
+import static jpastudy.querydsl.study.entity.QTeamStats.teamStats;
+
+// Member 변경을 트랜잭션 단위로 모아뒀다가 커밋 직전에 team_stats 에 한 번에 반영한다.
+// team_stats 행을 team id 순으로 잠그므로 같은 team 을 건드리는 트랜잭션끼리는 순서대로 반영된다.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TeamStatsService {
+
+    // sum(age) 는 int 범위를 넘을 수 있으므로 long 으로 받는다.
+    private static final NumberExpression<Long> AGE_SUM = member.age.sum().longValue();
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final PlatformTransactionManager transactionManager;
+
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    @EventListener
+    public void onMemberChanged(MemberChangedEvent event) {
+        Changes changes = changes();
+        if (changes == null) {
+            return;
+        }
+        if (event.getBefore() != null) {
+            changes.remove(event.getBefore());
+        }
+        if (event.getAfter() != null) {
+            changes.add(event.getAfter());
+        }
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (!(event.getEntity() instanceof Team)
+            || event.getType() == EntityChangedEvent.Type.UPDATED) {
+            return;
+        }
+        Changes changes = changes();
+        if (changes == null) {
+            return;
+        }
+        Long teamId = ((Team) event.getEntity()).getId();
+        if (event.getType() == EntityChangedEvent.Type.PERSISTED) {
+            changes.createdTeams.add(teamId);
+        } else {
+            changes.removedTeams.add(teamId);
+        }
+    }
+
+    // 벌크 변경은 변경 전 값을 모르므로 다음 reconcile 때 다시 집계한다.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBulkChanged(BulkChangedEvent event) {
+        if (event.getEntityType() == Member.class) {
+            dirty.set(true);
+        }
+    }
+
+    // 꺼져 있는 동안 바뀐 데이터가 있을 수 있으므로 시작할 때 한 번 맞춘다.
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        reconcile();
+    }
+
+    @Scheduled(fixedDelayString = "${team.stats.reconcile-delay:PT1M}")
+    public void reconcileIfDirty() {
+        if (dirty.get()) {
+            reconcile();
+        }
+    }
+
+    @Scheduled(cron = "${team.stats.reconcile-cron:0 0 4 * * *}")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    // 기존 team_stats 행을 먼저 잠가서 집계하는 동안 커밋되는 증분 반영이 뒤로 밀리게 한다.
+    public void reconcile() {
+        dirty.set(false);
+        long started = System.currentTimeMillis();
+        int teams = new TransactionTemplate(transactionManager).execute(status -> {
+            Map<Long, TeamStats> existing = queryFactory
+                .selectFrom(teamStats)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .fetch().stream()
+                .collect(Collectors.toMap(TeamStats::getTeamId, Function.identity()));
+
+            int count = 0;
+            for (Tuple row : queryFactory
+                .select(team.id, member.count(), AGE_SUM, member.age.min(), member.age.max())
+                .from(team)
+                .leftJoin(team.members, member)
+                .groupBy(team.id)
+                .fetch()) {
+                TeamStats stats = existing.remove(row.get(team.id));
+                if (stats == null) {
+                    stats = new TeamStats(row.get(team.id));
+                    em.persist(stats);
+                }
+                reset(stats, row);
+                count++;
+            }
+            existing.values().forEach(em::remove);
+            return count;
+        });
+        log.info("reconciled team stats for {} teams in {}ms", teams,
+            System.currentTimeMillis() - started);
+    }
+
+    private void reset(TeamStats stats, Tuple row) {
+        Long ageSum = row.get(AGE_SUM);
+        stats.reset(row.get(member.count()), ageSum != null ? ageSum : 0,
+            row.get(member.age.min()), row.get(member.age.max()));
+    }
+
+    private Changes changes() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            log.debug("member changed outside a transaction, team stats left to reconcile");
+            dirty.set(true);
+            return null;
+        }
+        Changes changes = (Changes) TransactionSynchronizationManager.getResource(this);
+        if (changes == null) {
+            changes = new Changes();
+            TransactionSynchronizationManager.bindResource(this, changes);
+            TransactionSynchronizationManager.registerSynchronization(new UnbindChanges());
+            // 커밋 시 flush 에서 나온 변경까지 받아야 하므로 Hibernate 가 flush 를 끝낸 뒤 반영한다.
+            Changes pending = changes;
+            em.unwrap(SessionImplementor.class).getActionQueue()
+                .registerProcess((BeforeTransactionCompletionProcess) session -> apply(pending));
+        }
+        return changes;
+    }
+
+    private void apply(Changes changes) {
+        for (Long teamId : changes.removedTeams) {
+            TeamStats stats = em.find(TeamStats.class, teamId, LockModeType.PESSIMISTIC_WRITE);
+            if (stats != null) {
+                em.remove(stats);
+            }
+            changes.byTeam.remove(teamId);
+        }
+        for (Long teamId : changes.createdTeams) {
+            if (!changes.removedTeams.contains(teamId)) {
+                changes.byTeam.computeIfAbsent(teamId, id -> new TeamChanges());
+            }
+        }
+        for (Map.Entry<Long, TeamChanges> entry : changes.byTeam.entrySet()) {
+            Long teamId = entry.getKey();
+            TeamChanges delta = entry.getValue();
+            TeamStats stats = em.find(TeamStats.class, teamId, LockModeType.PESSIMISTIC_WRITE);
+            if (stats == null) {
+                // 행이 없는 team 은 0 에 증분을 더하면 어긋나므로 flush 된 데이터로 통째로 집계한다.
+                stats = new TeamStats(teamId);
+                reset(stats, queryFactory
+                    .select(member.count(), AGE_SUM, member.age.min(), member.age.max())
+                    .from(member)
+                    .where(member.team.id.eq(teamId))
+                    .fetchOne());
+                em.persist(stats);
+                continue;
+            }
+            stats.add(delta.count, delta.ageSum);
+            // 최솟값이나 최댓값이 빠졌으면 (team_id, age) 인덱스로 다시 구한다.
+            if (delta.removedMin != null
+                && (stats.getMinAge() == null || delta.removedMin <= stats.getMinAge()
+                || delta.removedMax >= stats.getMaxAge())) {
+                Tuple range = queryFactory
+                    .select(member.age.min(), member.age.max())
+                    .from(member)
+                    .where(member.team.id.eq(teamId))
+                    .fetchOne();
+                stats.reset(stats.getMemberCount(), stats.getAgeSum(),
+                    range.get(member.age.min()), range.get(member.age.max()));
+            } else if (delta.addedMin != null) {
+                stats.widen(delta.addedMin);
+                stats.widen(delta.addedMax);
+            }
+        }
+        em.flush();
+    }
+
+    private class UnbindChanges implements TransactionSynchronization {
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(TeamStatsService.this);
+        }
+    }
+
+    private static class Changes {
+
+        // team id 순으로 잠가야 트랜잭션끼리 교착되지 않는다.
+        private final Map<Long, TeamChanges> byTeam = new TreeMap<>();
+        private final Set<Long> createdTeams = new HashSet<>();
+        private final Set<Long> removedTeams = new HashSet<>();
+
+        void add(MemberState state) {
+            if (state.getTeamId() != null) {
+                byTeam.computeIfAbsent(state.getTeamId(), id -> new TeamChanges())
+                    .add(state.getAge());
+            }
+        }
+
+        void remove(MemberState state) {
+            if (state.getTeamId() != null) {
+                byTeam.computeIfAbsent(state.getTeamId(), id -> new TeamChanges())
+                    .remove(state.getAge());
+            }
+        }
+    }
+
+    private static class TeamChanges {
+
+        private long count;
+        private long ageSum;
+        private Integer addedMin;
+        private Integer addedMax;
+        private Integer removedMin;
+        private Integer removedMax;
+
+        void add(int age) {
+            count++;
+            ageSum += age;
+            addedMin = addedMin == null ? age : Math.min(addedMin, age);
+            addedMax = addedMax == null ? age : Math.max(addedMax, age);
+        }
+
+        void remove(int age) {
+            count--;
+            ageSum -= age;
+            removedMin = removedMin == null ? age : Math.min(removedMin, age);
+            removedMax = removedMax == null ? age : Math.max(removedMax, age);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package jpastudy.querydsl.study.config;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jpastudy.querydsl.study.entity.Member;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.concurrent.CompletableFuture;
+import javax.persistence.EntityManager;
+import javax.servlet.FilterChain;
+
+import static jpastudy.querydsl.study.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class NPlusOneDetectorTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    @Qualifier("memberCountExecutor")
+    ThreadPoolTaskExecutor executor;
+
+    SqlInspectionProperties properties;
+    NPlusOneDetector detector;
+
+    @BeforeEach
+    public void before() {
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("member" + i, i));
+        }
+        em.flush();
+        properties = new SqlInspectionProperties();
+        properties.setRepeatThreshold(5);
+        properties.setFailOnNPlusOne(true);
+        detector = new NPlusOneDetector(properties);
+    }
+
+    @Test
+    public void repeatedShapeFailsBeforeResponseIsCommitted() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain perMember = (request, res) -> {
+            res.getWriter().write("partial");
+            res.flushBuffer();
+            queryPerMember();
+        };
+
+        assertThatThrownBy(() -> detector.doFilter(new MockHttpServletRequest("GET", "/members"),
+            response, perMember))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("/members");
+        assertThat(response.isCommitted()).isFalse();
+        assertThat(response.getContentLength()).isZero();
+    }
+
+    @Test
+    public void singleQueryPasses() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain inOneQuery = (request, res) -> {
+            queryFactory
+                .selectFrom(member)
+                .where(member.username.in("member0", "member1", "member2", "member3", "member4"))
+                .fetch();
+            res.getWriter().write("ok");
+        };
+
+        detector.doFilter(new MockHttpServletRequest("GET", "/members"), response, inOneQuery);
+
+        assertThat(response.getContentAsString()).isEqualTo("ok");
+    }
+
+    @Test
+    public void onlyWarnsWhenFailIsOff() throws Exception {
+        properties.setFailOnNPlusOne(false);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain perMember = (request, res) -> {
+            queryPerMember();
+            res.getWriter().write("ok");
+        };
+
+        assertThatCode(() -> detector.doFilter(new MockHttpServletRequest("GET", "/members"),
+            response, perMember))
+            .doesNotThrowAnyException();
+        assertThat(response.getContentAsString()).isEqualTo("ok");
+    }
+
+    @Test
+    public void countsQueriesOnPropagatedExecutor() {
+        FilterChain offThread = (request, res) ->
+            CompletableFuture.runAsync(this::queryPerMember, executor).join();
+
+        assertThatThrownBy(() -> detector.doFilter(new MockHttpServletRequest("GET", "/members"),
+            new MockHttpServletResponse(), offThread))
+            .isInstanceOf(IllegalStateException.class);
+    }
+
+    private void queryPerMember() {
+        for (int i = 0; i < 5; i++) {
+            queryFactory.selectFrom(member).where(member.username.eq("member" + i)).fetch();
+        }
+    }
+}
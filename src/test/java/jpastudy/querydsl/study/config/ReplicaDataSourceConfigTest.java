@@ -0,0 +1,66 @@
+package jpastudy.querydsl.study.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaDataSourceConfigTest {
+
+    ReplicaDataSourceConfig config = new ReplicaDataSourceConfig();
+    MeterRegistry registry = new SimpleMeterRegistry();
+
+    @AfterEach
+    public void cleanUp() throws Exception {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        config.destroy();
+    }
+
+    @Test
+    public void poolsFollowHikariPropertiesAndReportMetrics() throws SQLException {
+        MockEnvironment environment = new MockEnvironment()
+            .withProperty("spring.datasource.hikari.maximum-pool-size", "3")
+            .withProperty("spring.datasource.hikari.connection-timeout", "1500")
+            .withProperty("datasource.replica.hikari.maximum-pool-size", "2");
+        DataSourceProperties primaryProperties = new DataSourceProperties();
+        primaryProperties.setUrl("jdbc:h2:mem:primary-pool;DB_CLOSE_DELAY=-1");
+        primaryProperties.setUsername("sa");
+        ReplicaDataSourceProperties.Node node = new ReplicaDataSourceProperties.Node();
+        node.setUrl("jdbc:h2:mem:replica-pool;DB_CLOSE_DELAY=-1");
+        node.setUsername("sa");
+        ReplicaDataSourceProperties replicaProperties = new ReplicaDataSourceProperties();
+        replicaProperties.setNodes(List.of(node));
+
+        DataSource routing = config.routingDataSource(primaryProperties, replicaProperties,
+            environment, new StaticListableBeanFactory(Map.of("registry", registry))
+                .getBeanProvider(MeterRegistry.class), false);
+        connect(routing);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        connect(routing);
+
+        assertThat(maxConnections("primary")).isEqualTo(3);
+        assertThat(maxConnections("replica-0")).isEqualTo(2);
+    }
+
+    private void connect(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.isValid(1);
+        }
+    }
+
+    private double maxConnections(String pool) {
+        return registry.get("hikaricp.connections.max").tag("pool", pool).gauge().value();
+    }
+}
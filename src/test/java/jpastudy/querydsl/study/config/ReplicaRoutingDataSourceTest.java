@@ -0,0 +1,79 @@
+package jpastudy.querydsl.study.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaRoutingDataSourceTest {
+
+    DataSource primary;
+    DataSource replica1;
+    DataSource replica2;
+
+    @BeforeEach
+    public void before() {
+        primary = node("primary");
+        replica1 = node("replica1");
+        replica2 = node("replica2");
+    }
+
+    @Test
+    public void routesReadOnlyToReplicasRoundRobin() {
+        DataSource routing = routing(List.of(replica1, replica2),
+            ReplicaRoutingDataSource.Selection.ROUND_ROBIN);
+
+        assertThat(whoAmI(routing, false)).isEqualTo("primary");
+        assertThat(whoAmI(routing, true)).isEqualTo("replica1");
+        assertThat(whoAmI(routing, true)).isEqualTo("replica2");
+        assertThat(whoAmI(routing, true)).isEqualTo("replica1");
+        assertThat(whoAmI(routing, false)).isEqualTo("primary");
+    }
+
+    @Test
+    public void fallsBackWhenReplicaIsDown() {
+        DataSource down = new DriverManagerDataSource("jdbc:h2:mem:down;IFEXISTS=TRUE", "sa", "");
+
+        DataSource routing = routing(List.of(down, replica2),
+            ReplicaRoutingDataSource.Selection.ROUND_ROBIN);
+        assertThat(whoAmI(routing, true)).isEqualTo("replica2");
+        assertThat(whoAmI(routing, true)).isEqualTo("replica2");
+
+        DataSource allDown = routing(List.of(down),
+            ReplicaRoutingDataSource.Selection.LEAST_LATENCY);
+        assertThat(whoAmI(allDown, true)).isEqualTo("primary");
+    }
+
+    private DataSource routing(List<DataSource> replicas,
+        ReplicaRoutingDataSource.Selection selection) {
+        return new LazyConnectionDataSourceProxy(
+            new ReplicaRoutingDataSource(primary, replicas, selection, Duration.ofMinutes(1)));
+    }
+
+    private String whoAmI(DataSource dataSource, boolean readOnly) {
+        TransactionTemplate tx = new TransactionTemplate(
+            new DataSourceTransactionManager(dataSource));
+        tx.setReadOnly(readOnly);
+        return tx.execute(status -> new JdbcTemplate(dataSource)
+            .queryForObject("select name from node", String.class));
+    }
+
+    private DataSource node(String name) {
+        DataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table if not exists node (name varchar(20))");
+        jdbcTemplate.update("delete from node");
+        jdbcTemplate.update("insert into node values (?)", name);
+        return dataSource;
+    }
+}
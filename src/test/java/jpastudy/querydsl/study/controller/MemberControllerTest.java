@@ -0,0 +1,101 @@
+package jpastudy.querydsl.study.controller;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jpastudy.querydsl.study.entity.Member;
+import jpastudy.querydsl.study.entity.Team;
+import jpastudy.querydsl.study.support.CommittedFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManager;
+
+import static jpastudy.querydsl.study.entity.QMember.member;
+import static jpastudy.querydsl.study.repo.support.QueryCount.assertQueryCount;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class MemberControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    ApplicationContext context;
+
+    CommittedFixture fixture;
+    String teamName;
+
+    // MockMvc 요청은 테스트 트랜잭션 밖에서 읽으므로 고유한 이름으로 커밋하고 그 데이터만 지운다.
+    @BeforeEach
+    public void before() {
+        fixture = new CommittedFixture(context);
+        teamName = fixture.name("teamA");
+        fixture.commit(() -> {
+            Team teamA = new Team(teamName);
+            em.persist(teamA);
+            em.persist(new Member(fixture.name("member1"), 10, teamA));
+            em.persist(new Member(fixture.name("member2"), 20, teamA));
+        });
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    public void conditionalGetAnswersNotModified() throws Exception {
+        for (String path : new String[]{"/v2/members", "/v3/members"}) {
+            String etag = mockMvc.perform(get(path).param("teamName", teamName))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(2))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+            assertQueryCount(0, () -> {
+                try {
+                    mockMvc.perform(get(path).param("teamName", teamName)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                        .andExpect(status().isNotModified())
+                        .andExpect(header().string(HttpHeaders.ETAG, etag))
+                        .andExpect(content().string(""));
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+    }
+
+    @Test
+    public void changedTeamAnswersNewPage() throws Exception {
+        String etag = mockMvc.perform(get("/v2/members").param("teamName", teamName))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        fixture.commit(() -> queryFactory.selectFrom(member)
+            .where(member.username.eq(fixture.name("member1")))
+            .fetchOne()
+            .setAge(11));
+
+        mockMvc.perform(get("/v2/members").param("teamName", teamName)
+            .header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.content[0].age").value(11));
+    }
+}
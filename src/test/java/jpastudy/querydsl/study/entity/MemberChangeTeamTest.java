@@ -0,0 +1,89 @@
+package jpastudy.querydsl.study.entity;
+
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+import static jpastudy.querydsl.study.repo.support.QueryCount.assertQueryCount;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberChangeTeamTest {
+
+    @Autowired
+    EntityManager em;
+
+    Long teamAId;
+    Long teamBId;
+    Long member1Id;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        Member member1 = new Member("member1", 10, teamA);
+        em.persist(member1);
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.flush();
+        em.clear();
+        teamAId = teamA.getId();
+        teamBId = teamB.getId();
+        member1Id = member1.getId();
+    }
+
+    @Test
+    public void joiningQueuesAddWithoutLoadingMembers() {
+        Team teamA = em.find(Team.class, teamAId);
+
+        Member member4 = assertQueryCount(0, () -> new Member("member4", 40, teamA));
+        em.persist(member4);
+
+        assertThat(Hibernate.isInitialized(teamA.getMembers())).isFalse();
+        assertThat(teamA.getMembers()).extracting("username")
+            .containsExactlyInAnyOrder("member1", "member2", "member4");
+    }
+
+    @Test
+    public void movingFromUnloadedTeamQueuesAdd() {
+        Team teamB = em.find(Team.class, teamBId);
+        Member member1 = em.find(Member.class, member1Id);
+        Team teamA = member1.getTeam();
+
+        assertQueryCount(0, () -> member1.changeTeam(teamB));
+
+        assertThat(Hibernate.isInitialized(teamA)).isFalse();
+        assertThat(teamB.getMembers()).extracting("username")
+            .containsExactlyInAnyOrder("member1", "member3");
+        em.flush();
+        em.clear();
+        assertThat(em.find(Team.class, teamBId).getMembers()).hasSize(2);
+        assertThat(em.find(Team.class, teamAId).getMembers()).hasSize(1);
+    }
+
+    @Test
+    public void movingKeepsLoadedCollectionsInSync() {
+        Team teamA = em.find(Team.class, teamAId);
+        Team teamB = em.find(Team.class, teamBId);
+        Member member1 = em.find(Member.class, member1Id);
+        assertThat(teamA.getMembers()).hasSize(2);
+        assertThat(teamB.getMembers()).hasSize(1);
+
+        member1.changeTeam(teamB);
+
+        assertThat(teamA.getMembers()).extracting("username").containsExactly("member2");
+        assertThat(teamB.getMembers()).extracting("username")
+            .containsExactlyInAnyOrder("member1", "member3");
+        em.flush();
+        em.clear();
+        assertThat(em.find(Team.class, teamBId).getMembers()).hasSize(2);
+    }
+}
@@ -0,0 +1,103 @@
+package jpastudy.querydsl.study.entity;
+
+import jpastudy.querydsl.study.repo.MemberJpaRepo;
+import jpastudy.querydsl.study.support.CommittedFixture;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class SecondLevelCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    MemberJpaRepo memberJpaRepo;
+
+    @Autowired
+    ApplicationContext context;
+
+    CommittedFixture fixture;
+    Statistics statistics;
+    String username;
+    Long memberId;
+    Long teamId;
+
+    @BeforeEach
+    public void before() {
+        fixture = new CommittedFixture(context);
+        username = fixture.name("member1");
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        fixture.commit(() -> {
+            Team teamA = new Team(fixture.name("teamA"));
+            em.persist(teamA);
+            Member member1 = new Member(username, 10, teamA);
+            em.persist(member1);
+            memberId = member1.getId();
+            teamId = teamA.getId();
+        });
+        statistics.clear();
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    public void findByIdHitsEntityCache() {
+        fixture.commit(() -> memberJpaRepo.findById(memberId));
+        fixture.commit(() -> {
+            Member findMember = memberJpaRepo.findById(memberId).get();
+            assertThat(findMember.getTeam().getName()).isEqualTo(fixture.name("teamA"));
+        });
+
+        assertThat(statistics.getDomainDataRegionStatistics(Member.class.getName()).getHitCount())
+            .isEqualTo(2);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    public void findByUsernameHitsQueryCache() {
+        fixture.commit(() -> {
+            memberJpaRepo.findByUsername(username);
+            memberJpaRepo.findByUsernameQueryDsl(username);
+        });
+        fixture.commit(() -> {
+            assertThat(memberJpaRepo.findByUsername(username))
+                .extracting("username").containsExactly(username);
+            assertThat(memberJpaRepo.findByUsernameQueryDsl(username))
+                .extracting("username").containsExactly(username);
+        });
+
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void teamMembersCacheEvictedWhenOwningSideChanges() {
+        fixture.commit(() ->
+            assertThat(em.find(Team.class, teamId).getMembers()).hasSize(1));
+        fixture.commit(() -> {
+            Member member2 = new Member(fixture.name("member2"), 20);
+            member2.setTeam(em.getReference(Team.class, teamId));
+            em.persist(member2);
+        });
+
+        fixture.commit(() ->
+            assertThat(em.find(Team.class, teamId).getMembers()).hasSize(2));
+    }
+}
@@ -0,0 +1,193 @@
+package jpastudy.querydsl.study.repo;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jpastudy.querydsl.study.dto.MemberSearchCondition;
+import jpastudy.querydsl.study.dto.MemberTeamDto;
+import jpastudy.querydsl.study.entity.Member;
+import jpastudy.querydsl.study.entity.Team;
+import jpastudy.querydsl.study.service.MemberBulkOperations;
+import jpastudy.querydsl.study.support.CommittedFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import javax.persistence.EntityManager;
+
+import static jpastudy.querydsl.study.entity.QMember.member;
+import static jpastudy.querydsl.study.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "member.search.index.enabled=true")
+class MemberColumnarIndexTest {
+
+    @Autowired
+    MemberColumnarIndex columnarIndex;
+
+    @Autowired
+    MemberSearchPredicates predicates;
+
+    @Autowired
+    MemberJpaRepo memberJpaRepo;
+
+    @Autowired
+    MemberBulkOperations bulkOperations;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    ApplicationContext context;
+
+    CommittedFixture fixture;
+
+    // 같은 이름의 team 이 둘, 겹치는 username, team 없는 회원을 섞는다.
+    // 색인은 커밋된 데이터로 만들어지므로 고유한 이름으로 커밋하고, 바꾸는 것도 이 데이터로 한정한다.
+    @BeforeEach
+    public void before() {
+        columnarIndex.invalidate();
+        fixture = new CommittedFixture(context);
+        Random random = new Random(42);
+        fixture.commit(() -> {
+            List<Team> teams = Arrays.asList(new Team(fixture.name("teamA")),
+                new Team(fixture.name("teamB")), new Team(fixture.name("teamA")));
+            teams.forEach(em::persist);
+            for (int i = 0; i < 300; i++) {
+                int pick = random.nextInt(teams.size() + 1);
+                em.persist(new Member(fixture.name("member" + random.nextInt(60)),
+                    random.nextInt(60), pick < teams.size() ? teams.get(pick) : null));
+            }
+        });
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        fixture.cleanUp();
+        columnarIndex.invalidate();
+    }
+
+    @Test
+    public void matchesDatabaseSearch() {
+        assertSameAsDatabase();
+        assertThat((long) columnarIndex.size())
+            .isEqualTo(queryFactory.select(member.count()).from(member).fetchOne());
+    }
+
+    @Test
+    public void followsCommittedChanges() {
+        assertSameAsDatabase();
+
+        fixture.commit(() -> {
+            Team teamC = new Team(fixture.name("teamC"));
+            em.persist(teamC);
+            em.persist(new Member(fixture.name("member1"), 25, teamC));
+            em.persist(new Member(fixture.name("newcomer"), 33));
+
+            List<Member> members = queryFactory.selectFrom(member)
+                .where(fixture.owns(member.username))
+                .orderBy(member.id.asc())
+                .limit(5)
+                .fetch();
+            members.get(0).changeTeam(teamC);
+            members.get(1).setAge(59);
+            members.get(2).setUsername(fixture.name("renamed"));
+            em.remove(members.get(3));
+
+            queryFactory.selectFrom(team)
+                .where(team.name.eq(fixture.name("teamB")))
+                .fetchOne()
+                .setName(fixture.name("teamA"));
+        });
+        assertSameAsDatabase();
+
+        fixture.rollback(() -> em.persist(new Member(fixture.name("rolledBack"), 30)));
+        assertSameAsDatabase();
+    }
+
+    @Test
+    public void followsBulkChanges() {
+        assertSameAsDatabase();
+
+        bulkOperations.addAge(fixture.owns(member.username).and(member.age.lt(20)), 100);
+        bulkOperations.delete(member.username.eq(fixture.name("member7")));
+
+        assertSameAsDatabase();
+    }
+
+    @Test
+    public void repoSearchUsesIndexOutsideWriteTransaction() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(fixture.name("teamA"));
+        condition.setAgeGoe(10);
+
+        assertThat(sorted(memberJpaRepo.search(condition)))
+            .isEqualTo(columnarIndex.search(condition));
+
+        fixture.rollback(() -> {
+            em.persist(new Member(fixture.name("uncommitted"), 20, queryFactory.selectFrom(team)
+                .where(team.name.eq(fixture.name("teamA"))).fetchFirst()));
+            em.flush();
+            assertThat(memberJpaRepo.search(condition))
+                .extracting(MemberTeamDto::getUsername)
+                .contains(fixture.name("uncommitted"));
+        });
+    }
+
+    private void assertSameAsDatabase() {
+        for (MemberSearchCondition condition : conditions()) {
+            assertThat(columnarIndex.search(condition))
+                .as(condition.toString())
+                .isEqualTo(sorted(predicates.search(condition)));
+        }
+    }
+
+    private List<MemberSearchCondition> conditions() {
+        List<MemberSearchCondition> conditions = new ArrayList<>();
+        for (String username : Arrays.asList(null, "", fixture.name("member1"),
+            fixture.name("renamed"), "nobody")) {
+            for (String teamName : Arrays.asList(null, " ", fixture.name("teamA"),
+                fixture.name("teamB"), fixture.name("teamC"), "none")) {
+                for (Integer ageGoe : Arrays.asList(null, 10, 30)) {
+                    for (Integer ageLoe : Arrays.asList(null, 20, 45, 200)) {
+                        MemberSearchCondition condition = new MemberSearchCondition();
+                        condition.setUsername(username);
+                        condition.setTeamName(teamName);
+                        condition.setAgeGoe(ageGoe);
+                        condition.setAgeLoe(ageLoe);
+                        conditions.add(condition);
+                    }
+                }
+            }
+        }
+        for (String text : Arrays.asList("ber1", "r5", "member", "enam", "zzz")) {
+            for (String teamName : Arrays.asList(null, fixture.name("teamA"))) {
+                MemberSearchCondition contains = new MemberSearchCondition();
+                contains.setUsernameContains(text);
+                contains.setTeamName(teamName);
+                conditions.add(contains);
+
+                MemberSearchCondition startsWith = new MemberSearchCondition();
+                startsWith.setUsernameStartsWith(text);
+                startsWith.setTeamName(teamName);
+                conditions.add(startsWith);
+            }
+        }
+        return conditions;
+    }
+
+    private List<MemberTeamDto> sorted(List<MemberTeamDto> result) {
+        List<MemberTeamDto> sorted = new ArrayList<>(result);
+        sorted.sort(Comparator.comparing(MemberTeamDto::getMemberId));
+        return sorted;
+    }
+}
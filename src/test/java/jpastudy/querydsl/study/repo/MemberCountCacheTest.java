@@ -0,0 +1,50 @@
+package jpastudy.querydsl.study.repo;
+
+import jpastudy.querydsl.study.config.MemberSearchProperties;
+import jpastudy.querydsl.study.dto.MemberSearchCondition;
+import jpastudy.querydsl.study.entity.EntityChangedEvent;
+import jpastudy.querydsl.study.entity.Member;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberCountCacheTest {
+
+    @Test
+    public void cachesByNormalizedCondition() {
+        MemberCountCache cache = new MemberCountCache(new MemberSearchProperties());
+        AtomicInteger calls = new AtomicInteger();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setUsername("");
+        MemberSearchCondition same = new MemberSearchCondition();
+        same.setTeamName("teamA");
+
+        assertThat(cache.get(condition, () -> calls.incrementAndGet() * 10L)).isEqualTo(10);
+        assertThat(cache.get(same, () -> calls.incrementAndGet() * 10L)).isEqualTo(10);
+        assertThat(calls).hasValue(1);
+
+        cache.onEntityChanged(
+            new EntityChangedEvent(new Member("member1"), EntityChangedEvent.Type.PERSISTED));
+        assertThat(cache.size()).isZero();
+        assertThat(cache.get(same, () -> calls.incrementAndGet() * 10L)).isEqualTo(20);
+    }
+
+    @Test
+    public void expiresAfterTtl() {
+        MemberSearchProperties properties = new MemberSearchProperties();
+        properties.getCount().setTtl(Duration.ZERO);
+        MemberCountCache cache = new MemberCountCache(properties);
+        AtomicInteger calls = new AtomicInteger();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        cache.get(condition, calls::incrementAndGet);
+        cache.get(condition, calls::incrementAndGet);
+
+        assertThat(calls).hasValue(2);
+    }
+}
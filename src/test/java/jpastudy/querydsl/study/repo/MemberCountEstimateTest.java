@@ -0,0 +1,190 @@
+package jpastudy.querydsl.study.repo;
+
+import jpastudy.querydsl.study.dto.CountedPage;
+import jpastudy.querydsl.study.dto.MemberSearchCondition;
+import jpastudy.querydsl.study.dto.MemberTeamDto;
+import jpastudy.querydsl.study.entity.Member;
+import jpastudy.querydsl.study.entity.Team;
+import jpastudy.querydsl.study.service.MemberBulkOperations;
+import jpastudy.querydsl.study.support.CommittedFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import javax.persistence.EntityManager;
+
+import static jpastudy.querydsl.study.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+    "member.search.count.ttl=0s",
+    "member.search.estimate.enabled=true",
+    "member.search.estimate.threshold=20",
+    "member.search.estimate.age-bucket-width=10"
+})
+class MemberCountEstimateTest {
+
+    @Autowired
+    MemberRepo memberRepo;
+
+    @Autowired
+    MemberStatistics statistics;
+
+    @Autowired
+    MemberBulkOperations bulkOperations;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    ApplicationContext context;
+
+    CommittedFixture fixture;
+    Long teamAId;
+    Long teamBId;
+    MemberSearchCondition teamA = new MemberSearchCondition();
+    MemberSearchCondition teamB = new MemberSearchCondition();
+
+    // teamA 는 나이 0~39 에 40명, teamB 는 10명
+    // 통계는 커밋된 데이터로 만들어지므로 데이터를 커밋해 두고, 다른 테스트의 데이터와 섞이지 않게 team 으로 검색한다.
+    @BeforeEach
+    public void before() {
+        statistics.invalidate();
+        fixture = new CommittedFixture(context);
+        fixture.commit(() -> {
+            Team a = new Team(fixture.name("teamA"));
+            Team b = new Team(fixture.name("teamB"));
+            em.persist(a);
+            em.persist(b);
+            for (int i = 0; i < 40; i++) {
+                em.persist(new Member(fixture.name("a" + i), i, a));
+            }
+            for (int i = 0; i < 10; i++) {
+                em.persist(new Member(fixture.name("b" + i), i, b));
+            }
+            teamAId = a.getId();
+            teamBId = b.getId();
+        });
+        teamA.setTeamName(fixture.name("teamA"));
+        teamB.setTeamName(fixture.name("teamB"));
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    public void largeResultUsesEstimate() {
+        CountedPage<MemberTeamDto> result = search(teamA, 0);
+
+        assertThat(result.isTotalExact()).isFalse();
+        assertThat(result.getTotalElements()).isEqualTo(40);
+        assertThat(result.getContent()).hasSize(5);
+    }
+
+    @Test
+    public void estimateInterpolatesPartialBuckets() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(fixture.name("teamA"));
+        condition.setAgeGoe(5);
+        condition.setAgeLoe(34);
+
+        CountedPage<MemberTeamDto> result = search(condition, 0);
+
+        assertThat(result.isTotalExact()).isFalse();
+        assertThat(result.getTotalElements()).isEqualTo(30);
+    }
+
+    @Test
+    public void smallResultCountsExactly() {
+        CountedPage<MemberTeamDto> result = search(teamB, 0);
+
+        assertThat(result.isTotalExact()).isTrue();
+        assertThat(result.getTotalElements()).isEqualTo(10);
+    }
+
+    @Test
+    public void usernameConditionCountsExactly() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(fixture.name("a1"));
+
+        Page<MemberTeamDto> result = memberRepo.searchPageSimple(condition, PageRequest.of(0, 5));
+
+        assertThat(((CountedPage<MemberTeamDto>) result).isTotalExact()).isTrue();
+        assertThat(result.getTotalElements()).isEqualTo(1);
+    }
+
+    @Test
+    public void lastPageIsExact() {
+        Page<MemberTeamDto> result = memberRepo.searchPageSimple(teamA, PageRequest.of(3, 12));
+
+        assertThat(((CountedPage<MemberTeamDto>) result).isTotalExact()).isTrue();
+        assertThat(result.getTotalElements()).isEqualTo(40);
+    }
+
+    @Test
+    public void committedChangesUpdateStatistics() {
+        assertThat(search(teamA, 0).getTotalElements()).isEqualTo(40);
+
+        fixture.commit(() -> {
+            Team found = em.find(Team.class, teamAId);
+            for (int i = 0; i < 5; i++) {
+                em.persist(new Member(fixture.name("new" + i), 20, found));
+            }
+            findMember("b0").setTeam(found);
+            em.remove(findMember("a0"));
+        });
+        assertThat(search(teamA, 0).getTotalElements()).isEqualTo(45);
+
+        fixture.rollback(() ->
+            em.persist(new Member(fixture.name("rolledBack"), 20, em.find(Team.class, teamAId))));
+        assertThat(search(teamA, 0).getTotalElements()).isEqualTo(45);
+    }
+
+    @Test
+    public void bulkChangeReloadsStatistics() {
+        assertThat(search(teamA, 0).getTotalElements()).isEqualTo(40);
+
+        bulkOperations.delete(member.team.id.eq(teamAId).and(member.age.lt(10)));
+
+        assertThat(search(teamA, 0).getTotalElements()).isEqualTo(30);
+    }
+
+    @Test
+    public void extremeAgeKeepsHistogramSmall() {
+        assertThat(search(teamA, 0).getTotalElements()).isEqualTo(40);
+
+        fixture.commit(() -> em.persist(new Member(fixture.name("old"), Integer.MAX_VALUE,
+            em.find(Team.class, teamAId))));
+        assertThat(search(teamA, 0).getTotalElements()).isEqualTo(41);
+
+        statistics.invalidate();
+        CountedPage<MemberTeamDto> reloaded = search(teamA, 0);
+        assertThat(reloaded.isTotalExact()).isFalse();
+        assertThat(reloaded.getTotalElements()).isEqualTo(41);
+    }
+
+    @Test
+    public void writeTransactionCountsExactly() {
+        fixture.commit(() -> {
+            assertThat(search(teamA, 0).isTotalExact()).isTrue();
+        });
+    }
+
+    private Member findMember(String username) {
+        return memberRepo.findByUsername(fixture.name(username)).get(0);
+    }
+
+    private CountedPage<MemberTeamDto> search(MemberSearchCondition condition, int page) {
+        Page<MemberTeamDto> result = memberRepo.searchPageComplex(condition,
+            PageRequest.of(page, 5));
+        assertThat(result).isInstanceOf(CountedPage.class);
+        return (CountedPage<MemberTeamDto>) result;
+    }
+}
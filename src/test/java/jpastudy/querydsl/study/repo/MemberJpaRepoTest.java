@@ -4,6 +4,7 @@ import jpastudy.querydsl.study.dto.MemberSearchCondition;
 import jpastudy.querydsl.study.dto.MemberTeamDto;
 import jpastudy.querydsl.study.entity.Member;
 import jpastudy.querydsl.study.entity.Team;
+import jpastudy.querydsl.study.repo.support.JpqlCache;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -12,6 +13,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 import javax.persistence.EntityManager;
 
+import static jpastudy.querydsl.study.repo.support.QueryCount.assertQueryCount;
 import static org.assertj.core.api.Assertions.assertThat;
 
 @SpringBootTest
@@ -24,6 +26,9 @@ class MemberJpaRepoTest {
     @Autowired
     MemberJpaRepo memberJpaRepo;
 
+    @Autowired
+    JpqlCache jpqlCache;
+
     @Test
     public void basicTest() {
         Member member = new Member("member1", 10);
@@ -103,4 +108,51 @@ class MemberJpaRepoTest {
 
         assertThat(result).extracting("username").containsExactly("member4");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void searchReusesJpqlPerShape() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30));
+
+        MemberSearchCondition first = new MemberSearchCondition();
+        first.setTeamName("teamA");
+        first.setAgeGoe(15);
+        MemberSearchCondition second = new MemberSearchCondition();
+        second.setTeamName("teamA");
+        second.setAgeGoe(5);
+        second.setUsername(" ");
+
+        assertThat(memberJpaRepo.search(first)).extracting("username")
+            .containsExactly("member2");
+        long hits = jpqlCache.getHitCount();
+        assertThat(memberJpaRepo.search(second))
+            .containsExactlyElementsOf(memberJpaRepo.searchByBuilder(second));
+        assertThat(jpqlCache.getHitCount()).isGreaterThan(hits);
+
+        assertThat(memberJpaRepo.search(new MemberSearchCondition())).extracting("teamName")
+            .containsExactly("teamA", "teamA", null);
+    }
+
+    @Test
+    public void statementCountTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        Member member1 = new Member("member1", 10, teamA);
+        em.persist(member1);
+        em.persist(new Member("member2", 20, teamA));
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        assertQueryCount(1, () -> memberJpaRepo.search(condition));
+        assertQueryCount(1, () -> memberJpaRepo.searchByBuilder(condition));
+        assertQueryCount(1, () -> memberJpaRepo.findAllQueryDsl());
+        // 위에서 읽은 엔티티가 영속성 컨텍스트에 있으므로 다시 나가지 않는다.
+        assertQueryCount(0, () -> memberJpaRepo.findById(member1.getId()));
+    }
+}
@@ -0,0 +1,89 @@
+package jpastudy.querydsl.study.repo;
+
+import jpastudy.querydsl.study.dto.MemberSearchCondition;
+import jpastudy.querydsl.study.dto.MemberTeamDto;
+import jpastudy.querydsl.study.entity.Member;
+import jpastudy.querydsl.study.entity.Team;
+import jpastudy.querydsl.study.support.CommittedFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+    "member.search.count.concurrent=true",
+    "member.search.count.ttl=0s"
+})
+class MemberParallelCountTest {
+
+    @Autowired
+    MemberRepo memberRepo;
+
+    @Autowired
+    @Qualifier("memberCountExecutor")
+    ThreadPoolTaskExecutor memberCountExecutor;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    ApplicationContext context;
+
+    CommittedFixture fixture;
+    Long teamAId;
+    MemberSearchCondition condition = new MemberSearchCondition();
+
+    // count 가 다른 스레드의 트랜잭션에서 돌기 때문에 데이터를 커밋해 둔다.
+    @BeforeEach
+    public void before() {
+        fixture = new CommittedFixture(context);
+        fixture.commit(() -> {
+            Team teamA = new Team(fixture.name("teamA"));
+            em.persist(teamA);
+            for (int i = 1; i <= 5; i++) {
+                em.persist(new Member(fixture.name("member" + i), i * 10, teamA));
+            }
+            teamAId = teamA.getId();
+        });
+        condition.setTeamName(fixture.name("teamA"));
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    public void countsOnSeparateThread() {
+        long submitted = memberCountExecutor.getThreadPoolExecutor().getTaskCount();
+
+        Page<MemberTeamDto> result = memberRepo.searchPageComplex(condition, PageRequest.of(0, 2));
+
+        assertThat(result.getTotalElements()).isEqualTo(5);
+        assertThat(result.getContent()).hasSize(2);
+        assertThat(memberCountExecutor.getThreadPoolExecutor().getTaskCount())
+            .isGreaterThan(submitted);
+    }
+
+    @Test
+    public void writeTransactionCountsSerially() {
+        fixture.rollback(() -> {
+            em.persist(new Member(fixture.name("member6"), 60, em.find(Team.class, teamAId)));
+
+            Page<MemberTeamDto> result = memberRepo
+                .searchPageComplex(condition, PageRequest.of(0, 2));
+
+            assertThat(result.getTotalElements()).isEqualTo(6);
+        });
+    }
+}
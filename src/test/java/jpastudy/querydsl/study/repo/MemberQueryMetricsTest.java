@@ -0,0 +1,67 @@
+package jpastudy.querydsl.study.repo;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jpastudy.querydsl.study.dto.MemberSearchCondition;
+import jpastudy.querydsl.study.entity.Member;
+import jpastudy.querydsl.study.entity.Team;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberQueryMetricsTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepo memberRepo;
+
+    @Autowired
+    MemberJpaRepo memberJpaRepo;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @Test
+    public void recordsQueryRowsAndCount() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamA));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(15);
+
+        // 같은 컨텍스트를 쓰는 다른 테스트도 기록하므로 증가분으로 본다.
+        Timer page = registry.timer(MemberQueryMetrics.QUERY,
+            "method", "MemberRepoCustomImpl.searchPageSimple",
+            "shape", "teamName+ageGoe", "outcome", "success");
+        DistributionSummary rows = registry.summary(MemberQueryMetrics.ROWS,
+            "method", "MemberJpaRepo.search", "shape", "teamName+ageGoe");
+        long pageCount = page.count();
+        double rowTotal = rows.totalAmount();
+
+        memberRepo.searchPageSimple(condition, PageRequest.of(0, 10));
+        memberJpaRepo.search(condition);
+
+        assertThat(page.count()).isEqualTo(pageCount + 1);
+        assertThat(rows.totalAmount()).isEqualTo(rowTotal + 2);
+
+        assertThat(registry.find(MemberQueryMetrics.COUNT).tags("shape", "teamName+ageGoe")
+            .timer()).isNotNull();
+        assertThat(registry.find(MemberQueryMetrics.CONTENT).tags("shape", "teamName+ageGoe")
+            .timer()).isNotNull();
+    }
+}
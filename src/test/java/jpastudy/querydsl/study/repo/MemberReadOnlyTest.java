@@ -0,0 +1,135 @@
+package jpastudy.querydsl.study.repo;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jpastudy.querydsl.study.dto.MemberSearchCondition;
+import jpastudy.querydsl.study.entity.Member;
+import jpastudy.querydsl.study.entity.Team;
+import jpastudy.querydsl.study.support.CommittedFixture;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static jpastudy.querydsl.study.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class MemberReadOnlyTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepo memberRepo;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    MemberBatchLookup batchLookup;
+
+    @Autowired
+    MemberSearchPredicates predicates;
+
+    @Autowired
+    ApplicationContext context;
+
+    CommittedFixture fixture;
+    Long memberId;
+
+    // 테스트 트랜잭션 밖에서 읽어야 하므로 데이터를 커밋해 둔다.
+    @BeforeEach
+    public void before() {
+        fixture = new CommittedFixture(context);
+        fixture.commit(() -> {
+            Team teamA = new Team(fixture.name("teamA"));
+            em.persist(teamA);
+            Member member1 = new Member(fixture.name("member1"), 10, teamA);
+            em.persist(member1);
+            memberId = member1.getId();
+        });
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        fixture.cleanUp();
+    }
+
+    // 읽기 전용 트랜잭션은 세션 기본값으로 이미 읽기 전용이므로, 트랜잭션 없이 EntityManager 만 열린
+    // open-in-view 상황에서 hint 만으로 스냅샷이 빠지는지 본다.
+    @Test
+    public void hintKeepsNoSnapshotWithoutTransaction() {
+        withOpenEntityManager(() -> {
+            Member found = batchLookup.findByIds(List.of(memberId)).get(memberId);
+
+            assertThat(em.unwrap(Session.class).isDefaultReadOnly()).isFalse();
+            EntityEntry entry = entry(found);
+            assertThat(entry.isReadOnly()).isTrue();
+            assertThat(entry.getLoadedState()).isNull();
+        });
+    }
+
+    @Test
+    public void hintsOnlyOutsideWriteTransaction() {
+        withOpenEntityManager(() -> {
+            org.hibernate.query.Query<?> query = searchQuery();
+            assertThat(query.isReadOnly()).isTrue();
+            assertThat(query.getHibernateFlushMode()).isEqualTo(FlushMode.MANUAL);
+        });
+        fixture.commit(() -> {
+            org.hibernate.query.Query<?> query = searchQuery();
+            assertThat(query.isReadOnly()).isFalse();
+            assertThat(query.getHibernateFlushMode()).isNotEqualTo(FlushMode.MANUAL);
+        });
+    }
+
+    @Test
+    public void writeTransactionStillTracksChanges() {
+        fixture.commit(() -> {
+            Member found = memberRepo.findByIds(List.of(memberId)).get(memberId);
+
+            assertThat(entry(found).isReadOnly()).isFalse();
+            found.setAge(20);
+        });
+
+        assertThat(queryFactory.select(member.age).from(member).where(member.id.eq(memberId))
+            .fetchOne()).isEqualTo(20);
+    }
+
+    private org.hibernate.query.Query<?> searchQuery() {
+        return predicates.contentQuery(new MemberSearchCondition()).createQuery()
+            .unwrap(org.hibernate.query.Query.class);
+    }
+
+    private void withOpenEntityManager(Runnable work) {
+        EntityManager target = emf.createEntityManager();
+        TransactionSynchronizationManager.bindResource(emf, new EntityManagerHolder(target));
+        try {
+            work.run();
+        } finally {
+            TransactionSynchronizationManager.unbindResource(emf);
+            EntityManagerFactoryUtils.closeEntityManager(target);
+        }
+    }
+
+    private EntityEntry entry(Member found) {
+        return em.unwrap(SessionImplementor.class).getPersistenceContext().getEntry(found);
+    }
+}
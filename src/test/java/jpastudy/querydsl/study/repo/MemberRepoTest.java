@@ -1,5 +1,7 @@
 package jpastudy.querydsl.study.repo;
 
+import jpastudy.querydsl.study.dto.CursorSlice;
+import jpastudy.querydsl.study.dto.MemberCursor;
 import jpastudy.querydsl.study.dto.MemberSearchCondition;
 import jpastudy.querydsl.study.dto.MemberTeamDto;
 import jpastudy.querydsl.study.entity.Member;
@@ -9,12 +11,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import javax.persistence.EntityManager;
 
 import static jpastudy.querydsl.study.entity.QMember.member;
+import static jpastudy.querydsl.study.repo.support.QueryCount.assertNoRepeatedStatements;
+import static jpastudy.querydsl.study.repo.support.QueryCount.assertQueryCount;
 import static org.assertj.core.api.Assertions.assertThat;
 
 @SpringBootTest
@@ -94,6 +100,101 @@ class MemberRepoTest {
             .containsExactly("member1", "member2", "member3");
     }
 
+    @Test
+    public void searchPageComplexTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamB);
+        Member member4 = new Member("member4", 40, teamB);
+        Member member5 = new Member("member5", 50);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+        em.persist(member5);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        Page<MemberTeamDto> result = memberRepo.searchPageComplex(condition, PageRequest.of(0, 2));
+
+        assertThat(result.getTotalElements()).isEqualTo(4);
+        assertThat(result.getContent()).extracting("username")
+            .containsExactly("member2", "member3");
+
+        condition.setTeamName("teamB");
+        Page<MemberTeamDto> teamResult = memberRepo
+            .searchPageSimple(condition, PageRequest.of(0, 1));
+
+        assertThat(teamResult.getTotalElements()).isEqualTo(2);
+        assertThat(teamResult.getContent()).extracting("username").containsExactly("member3");
+    }
+
+    @Test
+    public void searchSliceTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 1; i <= 5; i++) {
+            em.persist(new Member("member" + i, i * 10, teamA));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        Slice<MemberTeamDto> first = memberRepo.searchSlice(condition, PageRequest.of(0, 2));
+        assertThat(first.getContent()).extracting("username").containsExactly("member1", "member2");
+        assertThat(first.hasNext()).isTrue();
+
+        Slice<MemberTeamDto> last = memberRepo.searchSlice(condition, PageRequest.of(2, 2));
+        assertThat(last.getContent()).extracting("username").containsExactly("member5");
+        assertThat(last.hasNext()).isFalse();
+    }
+
+    @Test
+    public void searchKeysetTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        Member member1 = new Member("member1", 40, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamB);
+        Member member4 = new Member("member4", 20, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        CursorSlice<MemberTeamDto> first = memberRepo
+            .searchKeyset(condition, MemberCursor.first(MemberCursor.Sort.ID), 3);
+        assertThat(first.getContent()).extracting("username")
+            .containsExactly("member1", "member2", "member3");
+        assertThat(first.isHasNext()).isTrue();
+
+        CursorSlice<MemberTeamDto> second = memberRepo
+            .searchKeyset(condition, MemberCursor.decode(first.getNextCursor()), 3);
+        assertThat(second.getContent()).extracting("username").containsExactly("member4");
+        assertThat(second.isHasNext()).isFalse();
+        assertThat(second.getNextCursor()).isNull();
+
+        CursorSlice<MemberTeamDto> byAge = memberRepo
+            .searchKeyset(condition, MemberCursor.first(MemberCursor.Sort.AGE), 2);
+        assertThat(byAge.getContent()).extracting("username")
+            .containsExactly("member2", "member4");
+
+        CursorSlice<MemberTeamDto> byAgeNext = memberRepo
+            .searchKeyset(condition, MemberCursor.decode(byAge.getNextCursor()), 2);
+        assertThat(byAgeNext.getContent()).extracting("username")
+            .containsExactly("member3", "member1");
+        assertThat(byAgeNext.isHasNext()).isFalse();
+    }
+
     @Test
     public void querydslPredicateExecutorTest() {
         Team teamA = new Team("teamA");
@@ -116,4 +217,77 @@ class MemberRepoTest {
             System.out.println("member = " + member);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void findByUsernamesTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member1", 11, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamA));
+
+        Map<String, List<Member>> result = memberRepo
+            .findByUsernames(List.of("member1", "member2", "member2", "nobody"));
+
+        assertThat(result).containsOnlyKeys("member1", "member2");
+        assertThat(result.get("member1")).extracting("age").containsExactlyInAnyOrder(10, 11);
+    }
+
+    @Test
+    public void findByIdsTest() {
+        Member member1 = new Member("member1", 10);
+        Member member2 = new Member("member2", 20);
+        Member member3 = new Member("member3", 30);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+
+        Map<Long, Member> result = memberRepo
+            .findByIds(List.of(member1.getId(), member3.getId(), -1L));
+
+        assertThat(result).containsOnlyKeys(member1.getId(), member3.getId());
+        assertThat(result.get(member3.getId())).isSameAs(member3);
+    }
+
+    @Test
+    public void statementCountTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 1; i <= 5; i++) {
+            em.persist(new Member("member" + i, i * 10, teamA));
+        }
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        assertQueryCount(1, () -> memberRepo.search(condition));
+        // 쓰기 트랜잭션 안이라 count 캐시를 거치지 않는다.
+        assertQueryCount(2, () -> memberRepo.searchPageSimple(condition, PageRequest.of(0, 2)));
+        assertQueryCount(2, () -> memberRepo.searchPageComplex(condition, PageRequest.of(0, 2)));
+        assertQueryCount(1, () -> memberRepo.searchPageComplex(condition, PageRequest.of(0, 10)));
+        assertQueryCount(1, () -> memberRepo.searchSlice(condition, PageRequest.of(0, 2)));
+        assertQueryCount(1, () -> memberRepo.findByUsernames(List.of("member1", "member2")));
+    }
+
+    @Test
+    public void teamAccessDoesNotRepeatTest() {
+        for (int t = 0; t < 20; t++) {
+            Team team = new Team("team" + t);
+            em.persist(team);
+            em.persist(new Member("member" + t, t, team));
+        }
+        em.flush();
+        em.clear();
+
+        // default_batch_fetch_size 로 team 프록시가 in 쿼리 몇 번에 묶여서 초기화돼야 한다.
+        List<Member> members = assertNoRepeatedStatements(5, () -> {
+            List<Member> found = memberRepo.findAll();
+            found.forEach(m -> m.getTeam().getName());
+            return found;
+        });
+        assertThat(members).hasSize(20);
+    }
+}
@@ -0,0 +1,72 @@
+package jpastudy.querydsl.study.repo;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import jpastudy.querydsl.study.dto.MemberSearchCondition;
+import jpastudy.querydsl.study.repo.support.SqlStatementRecorder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberSearchIndexTest {
+
+    @Autowired
+    MemberSearchPredicates predicates;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void usernameUsesIndex() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+
+        assertThat(explain(condition, "member1")).contains("IDX_MEMBER_USERNAME");
+        assertThat(explainCount(condition, "member1")).contains("IDX_MEMBER_USERNAME");
+    }
+
+    @Test
+    public void ageRangeUsesIndex() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        condition.setAgeLoe(30);
+
+        assertThat(explain(condition, 20, 30)).contains("IDX_MEMBER_AGE");
+        assertThat(explainCount(condition, 20, 30)).contains("IDX_MEMBER_AGE");
+    }
+
+    @Test
+    public void teamNameUsesIndexes() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(20);
+
+        assertThat(explain(condition, "teamA", 20))
+            .contains("IDX_TEAM_NAME", "IDX_MEMBER_TEAM_AGE");
+        assertThat(explainCount(condition, "teamA", 20))
+            .contains("IDX_TEAM_NAME", "IDX_MEMBER_TEAM_AGE");
+    }
+
+    private String explain(MemberSearchCondition condition, Object... args) {
+        return explain(predicates.contentQuery(condition), args);
+    }
+
+    private String explainCount(MemberSearchCondition condition, Object... args) {
+        return explain(predicates.countQuery(condition), args);
+    }
+
+    // 쿼리를 실행해서 Hibernate 가 실제로 내보낸 SQL 을 받아 H2 실행 계획을 본다.
+    private String explain(JPAQuery<?> query, Object... args) {
+        String sql;
+        try (SqlStatementRecorder.Recording recording = SqlStatementRecorder.start()) {
+            query.fetch();
+            sql = recording.getStatements().get(recording.count() - 1);
+        }
+        return jdbcTemplate.queryForObject("explain " + sql, String.class, args).toUpperCase();
+    }
+}
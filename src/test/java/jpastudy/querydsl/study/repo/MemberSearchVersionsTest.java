@@ -0,0 +1,143 @@
+package jpastudy.querydsl.study.repo;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jpastudy.querydsl.study.dto.MemberSearchCondition;
+import jpastudy.querydsl.study.entity.Member;
+import jpastudy.querydsl.study.entity.Team;
+import jpastudy.querydsl.study.service.MemberBulkOperations;
+import jpastudy.querydsl.study.support.CommittedFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.function.Consumer;
+import javax.persistence.EntityManager;
+
+import static jpastudy.querydsl.study.entity.QMember.member;
+import static jpastudy.querydsl.study.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class MemberSearchVersionsTest {
+
+    @Autowired
+    MemberSearchVersions versions;
+
+    @Autowired
+    MemberBulkOperations bulkOperations;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    ApplicationContext context;
+
+    CommittedFixture fixture;
+    MemberSearchCondition all = new MemberSearchCondition();
+    MemberSearchCondition teamA = new MemberSearchCondition();
+    MemberSearchCondition teamB = new MemberSearchCondition();
+    PageRequest page = PageRequest.of(0, 10);
+
+    // 버전은 커밋된 변경으로 올라가므로 고유한 이름으로 커밋하고 그 데이터만 지운다.
+    @BeforeEach
+    public void before() {
+        fixture = new CommittedFixture(context);
+        teamA.setTeamName(fixture.name("teamA"));
+        teamB.setTeamName(fixture.name("teamB"));
+        fixture.commit(() -> {
+            Team a = new Team(fixture.name("teamA"));
+            Team b = new Team(fixture.name("teamB"));
+            em.persist(a);
+            em.persist(b);
+            em.persist(new Member(fixture.name("member1"), 10, a));
+            em.persist(new Member(fixture.name("member2"), 20, b));
+        });
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    public void sameConditionSameEtag() {
+        MemberSearchCondition blankUsername = new MemberSearchCondition();
+        blankUsername.setTeamName(fixture.name("teamA"));
+        blankUsername.setUsername(" ");
+
+        assertThat(versions.etag(teamA, page)).isEqualTo(versions.etag(blankUsername, page));
+        assertThat(versions.etag(teamA, page)).isNotEqualTo(versions.etag(teamA,
+            PageRequest.of(1, 10)));
+        assertThat(versions.etag(teamA, page)).isNotEqualTo(versions.etag(teamB, page));
+    }
+
+    @Test
+    public void changeInOtherTeamKeepsEtag() {
+        String teamAEtag = versions.etag(teamA, page);
+        String teamBEtag = versions.etag(teamB, page);
+        String allEtag = versions.etag(all, page);
+
+        commit(em -> findMember("member2").setAge(21));
+
+        assertThat(versions.etag(teamA, page)).isEqualTo(teamAEtag);
+        assertThat(versions.etag(teamB, page)).isNotEqualTo(teamBEtag);
+        assertThat(versions.etag(all, page)).isNotEqualTo(allEtag);
+    }
+
+    @Test
+    public void movingMemberChangesBothTeams() {
+        String teamAEtag = versions.etag(teamA, page);
+        String teamBEtag = versions.etag(teamB, page);
+
+        commit(em -> findMember("member1").changeTeam(findMember("member2").getTeam()));
+
+        assertThat(versions.etag(teamA, page)).isNotEqualTo(teamAEtag);
+        assertThat(versions.etag(teamB, page)).isNotEqualTo(teamBEtag);
+    }
+
+    @Test
+    public void usernameChangeAndRenamedTeamChangeEtag() {
+        String teamAEtag = versions.etag(teamA, page);
+        commit(em -> findMember("member1").setUsername(fixture.name("renamed")));
+        assertThat(versions.etag(teamA, page)).isNotEqualTo(teamAEtag);
+
+        String teamCEtag = versions.etag(teamA, page);
+        commit(em -> queryFactory.selectFrom(team).where(team.name.eq(fixture.name("teamB")))
+            .fetchOne().setName(fixture.name("teamA")));
+        assertThat(versions.etag(teamA, page)).isNotEqualTo(teamCEtag);
+    }
+
+    @Test
+    public void rollbackKeepsEtag() {
+        String teamAEtag = versions.etag(teamA, page);
+
+        fixture.rollback(() -> findMember("member1").setAge(99));
+
+        assertThat(versions.etag(teamA, page)).isEqualTo(teamAEtag);
+    }
+
+    @Test
+    public void bulkChangeChangesEveryEtag() {
+        String teamAEtag = versions.etag(teamA, page);
+
+        bulkOperations.addAge(member.username.eq(fixture.name("member2")), 1);
+
+        assertThat(versions.etag(teamA, page)).isNotEqualTo(teamAEtag);
+    }
+
+    private void commit(Consumer<EntityManager> change) {
+        fixture.commit(() -> change.accept(em));
+    }
+
+    private Member findMember(String username) {
+        return queryFactory.selectFrom(member)
+            .where(member.username.eq(fixture.name(username))).fetchOne();
+    }
+}
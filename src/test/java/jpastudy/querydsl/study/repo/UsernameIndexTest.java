@@ -0,0 +1,181 @@
+package jpastudy.querydsl.study.repo;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jpastudy.querydsl.study.dto.MemberSearchCondition;
+import jpastudy.querydsl.study.dto.MemberTeamDto;
+import jpastudy.querydsl.study.entity.Member;
+import jpastudy.querydsl.study.entity.Team;
+import jpastudy.querydsl.study.repo.support.SqlStatementRecorder;
+import jpastudy.querydsl.study.service.MemberBulkOperations;
+import jpastudy.querydsl.study.support.CommittedFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+
+import static jpastudy.querydsl.study.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "member.search.username-index.max-candidates=64")
+class UsernameIndexTest {
+
+    @Autowired
+    UsernameIndex usernameIndex;
+
+    @Autowired
+    MemberSearchPredicates predicates;
+
+    @Autowired
+    MemberBulkOperations bulkOperations;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    ApplicationContext context;
+
+    CommittedFixture fixture;
+
+    // 색인은 커밋된 username 으로 만들어지므로 고유한 접미사("@n")를 붙여 커밋하고 그 데이터만 지운다.
+    // 접미사는 검색어에 걸리지 않으므로 후보 수는 접미사가 없을 때와 같다.
+    @BeforeEach
+    public void before() {
+        usernameIndex.invalidate();
+        fixture = new CommittedFixture(context);
+        fixture.commit(() -> {
+            Team teamA = new Team(fixture.name("teamA"));
+            em.persist(teamA);
+            for (int i = 0; i < 200; i++) {
+                em.persist(new Member(fixture.name("user" + i), i % 50,
+                    i % 2 == 0 ? teamA : null));
+            }
+            em.persist(new Member(fixture.name("kim%_"), 30));
+            em.persist(new Member(fixture.name("user7"), 31));
+        });
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        fixture.cleanUp();
+        usernameIndex.invalidate();
+    }
+
+    @Test
+    public void containsMatchesUsernames() {
+        for (String text : Arrays.asList("ser1", "r19", "er7", "m%_", "sera", "user")) {
+            assertThat(usernames(contains(text)))
+                .as(text)
+                .isEqualTo(expected(username -> username.contains(text)));
+        }
+    }
+
+    @Test
+    public void startsWithMatchesUsernames() {
+        for (String prefix : Arrays.asList("user1", "user7", "user19", "kim%", "k", "x", "user")) {
+            assertThat(usernames(startsWith(prefix)))
+                .as(prefix)
+                .isEqualTo(expected(username -> username.startsWith(prefix)));
+        }
+    }
+
+    @Test
+    public void indexedQueriesUseIdInList() {
+        // 첫 검색은 색인 적재 쿼리가 함께 나간다.
+        usernames(contains("ser1"));
+
+        assertThat(sql(contains("r19"))).contains(" in (").doesNotContain(" like ");
+        assertThat(sql(contains("zzz"))).doesNotContain(" like ");
+        assertThat(sql(startsWith("user19"))).contains(" in (").doesNotContain(" like ");
+
+        // 3글자 미만, 후보 초과는 like 로 검색한다.
+        assertThat(sql(contains("r1"))).contains(" like ");
+        assertThat(sql(contains("ser1"))).contains(" like ");
+        assertThat(sql(startsWith("user"))).contains(" like ");
+    }
+
+    @Test
+    public void followsCommittedChanges() {
+        assertThat(usernames(contains("ser1"))).contains(fixture.name("user1"));
+
+        fixture.commit(() -> {
+            Member user1 = queryFactory.selectFrom(member)
+                .where(member.username.eq(fixture.name("user1")))
+                .fetchOne();
+            user1.setUsername(fixture.name("renamed1"));
+            em.remove(queryFactory.selectFrom(member)
+                .where(member.username.eq(fixture.name("user10")))
+                .fetchOne());
+            em.persist(new Member(fixture.name("newuser1"), 20));
+        });
+        fixture.rollback(() -> em.persist(new Member(fixture.name("rolledBackUser1"), 20)));
+        bulkOperations.delete(member.username.eq(fixture.name("user11")));
+
+        assertThat(usernames(contains("ser1")))
+            .isEqualTo(expected(username -> username.contains("ser1")))
+            .contains(fixture.name("newuser1"))
+            .doesNotContain(fixture.name("user1"), fixture.name("user10"),
+                fixture.name("user11"), fixture.name("rolledBackUser1"));
+        assertThat(usernames(startsWith("rena"))).containsExactly(fixture.name("renamed1"));
+    }
+
+    @Test
+    public void writeTransactionSeesUncommittedUsernames() {
+        assertThat(usernames(contains("ser1"))).isNotEmpty();
+
+        fixture.rollback(() -> {
+            em.persist(new Member(fixture.name("uncommittedUser"), 20));
+            em.flush();
+            assertThat(usernames(contains("committedUs")))
+                .containsExactly(fixture.name("uncommittedUser"));
+            assertThat(usernames(startsWith("uncommitted")))
+                .containsExactly(fixture.name("uncommittedUser"));
+        });
+    }
+
+    private MemberSearchCondition contains(String text) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernameContains(text);
+        return condition;
+    }
+
+    private MemberSearchCondition startsWith(String prefix) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernameStartsWith(prefix);
+        return condition;
+    }
+
+    private List<String> usernames(MemberSearchCondition condition) {
+        return predicates.search(condition).stream()
+            .map(MemberTeamDto::getUsername)
+            .sorted()
+            .collect(Collectors.toList());
+    }
+
+    private List<String> expected(Predicate<String> filter) {
+        return queryFactory.select(member.username)
+            .from(member)
+            .fetch().stream()
+            .filter(filter)
+            .sorted()
+            .collect(Collectors.toList());
+    }
+
+    private String sql(MemberSearchCondition condition) {
+        try (SqlStatementRecorder.Recording recording = SqlStatementRecorder.start()) {
+            predicates.search(condition);
+            assertThat(recording.count()).isEqualTo(1);
+            return recording.getStatements().get(0).toLowerCase();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package jpastudy.querydsl.study.repo.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InListsTest {
+
+    @Test
+    public void padsChunksToPowersOfTwo() {
+        List<Integer> values = IntStream.range(0, 21).boxed().collect(Collectors.toList());
+
+        List<List<Integer>> chunks = InLists.paddedChunks(values, 8);
+
+        assertThat(chunks).extracting(List::size).containsExactly(8, 8, 8);
+        assertThat(chunks.get(2)).containsExactly(16, 17, 18, 19, 20, 20, 20, 20);
+    }
+
+    @Test
+    public void removesDuplicatesFirst() {
+        List<List<String>> chunks = InLists.paddedChunks(List.of("a", "b", "a", "c"), 512);
+
+        assertThat(chunks).containsExactly(List.of("a", "b", "c", "c"));
+        assertThat(InLists.paddedChunks(List.of(), 512)).isEmpty();
+        assertThat(InLists.paddedChunks(List.of("a"), 512)).containsExactly(List.of("a"));
+    }
+
+    @Test
+    public void rejectsUnalignedChunkSize() {
+        assertThatThrownBy(() -> InLists.paddedChunks(List.of(1), 100))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,93 @@
+package jpastudy.querydsl.study.repo.support;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jpastudy.querydsl.study.entity.Member;
+import jpastudy.querydsl.study.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static jpastudy.querydsl.study.entity.QMember.member;
+import static jpastudy.querydsl.study.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class JpqlCacheTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    JpqlCache cache;
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void before() {
+        cache = new JpqlCache(100);
+        queryFactory = new CachingJPAQueryFactory(em, cache);
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 20));
+    }
+
+    @Test
+    public void reusesJpqlForSameShape() {
+        assertThat(findUsernames("teamA", 15)).containsExactly("member2");
+        assertThat(findUsernames("teamA", 5)).containsExactly("member1", "member2");
+        assertThat(findUsernames("teamB", 5)).isEmpty();
+
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.getHitCount()).isEqualTo(2);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void keepsEqualConstantsApart() {
+        List<String> same = queryFactory.select(member.username)
+            .from(member)
+            .where(member.age.goe(20), member.age.loe(20))
+            .fetch();
+        List<String> different = queryFactory.select(member.username)
+            .from(member)
+            .where(member.age.goe(10), member.age.loe(15))
+            .fetch();
+
+        assertThat(same).containsExactly("member2", "member3");
+        assertThat(different).containsExactly("member1");
+        assertThat(cache.getMissCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void bypassesRewrittenConstants() {
+        for (String prefix : new String[]{"member", "member1"}) {
+            queryFactory.selectFrom(member)
+                .where(member.username.startsWith(prefix))
+                .fetch();
+        }
+        long count = queryFactory.selectFrom(member)
+            .where(member.username.startsWith("member1"))
+            .fetchCount();
+
+        assertThat(count).isEqualTo(1);
+        assertThat(cache.getHitCount()).isZero();
+        assertThat(cache.getBypassCount()).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    private List<String> findUsernames(String teamName, int age) {
+        return queryFactory
+            .select(member.username)
+            .from(member)
+            .join(member.team, team)
+            .where(team.name.eq(teamName), member.age.goe(age))
+            .orderBy(member.id.asc())
+            .fetch();
+    }
+}
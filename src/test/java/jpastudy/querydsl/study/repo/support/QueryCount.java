@@ -0,0 +1,41 @@
+package jpastudy.querydsl.study.repo.support;
+
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// action 을 실행하는 동안 현재 스레드에서 나간 SQL 수를 검증한다.
+// 영속성 컨텍스트에 쌓인 insert 가 섞이지 않도록 호출 전에 flush 해 둔다.
+public final class QueryCount {
+
+    private QueryCount() {
+    }
+
+    public static <T> T assertQueryCount(int expected, Supplier<T> action) {
+        try (SqlStatementRecorder.Recording recording = SqlStatementRecorder.start()) {
+            T result = action.get();
+            assertThat(recording.count())
+                .as("statements: %s", recording.getStatements())
+                .isEqualTo(expected);
+            return result;
+        }
+    }
+
+    public static void assertQueryCount(int expected, Runnable action) {
+        assertQueryCount(expected, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    // 같은 모양의 SQL 이 threshold 번 이상 반복되지 않았는지 검증한다.
+    public static <T> T assertNoRepeatedStatements(int threshold, Supplier<T> action) {
+        try (SqlStatementRecorder.Recording recording = SqlStatementRecorder.start()) {
+            T result = action.get();
+            assertThat(recording.countByShape())
+                .as("statements: %s", recording.getStatements())
+                .allSatisfy((shape, count) -> assertThat(count).isLessThan(threshold));
+            return result;
+        }
+    }
+}
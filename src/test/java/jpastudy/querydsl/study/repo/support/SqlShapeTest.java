@@ -0,0 +1,25 @@
+package jpastudy.querydsl.study.repo.support;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlShapeTest {
+
+    @Test
+    public void ignoresLiteralsCommentsAndInListLength() {
+        String first = "/* select m from Member m */ select member0_.member_id as member_i1_1_ "
+            + "from member member0_ where member0_.member_id in (?, ?, ?) and member0_.age > 10";
+        String second = "select  member0_.member_id as member_i1_1_\n"
+            + "from member member0_ where member0_.member_id in (?) and member0_.age > 20";
+
+        assertThat(SqlShape.of(first)).isEqualTo(SqlShape.of(second));
+        assertThat(SqlShape.of(first)).contains("member0_.member_id in (?)");
+    }
+
+    @Test
+    public void keepsDifferentStatementsApart() {
+        assertThat(SqlShape.of("select * from member where username = 'a'"))
+            .isNotEqualTo(SqlShape.of("select * from team where name = 'a'"));
+    }
+}
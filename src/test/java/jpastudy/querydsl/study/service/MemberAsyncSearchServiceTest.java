@@ -0,0 +1,69 @@
+package jpastudy.querydsl.study.service;
+
+import jpastudy.querydsl.study.dto.MemberSearchCondition;
+import jpastudy.querydsl.study.dto.MemberTeamDto;
+import jpastudy.querydsl.study.entity.Member;
+import jpastudy.querydsl.study.entity.Team;
+import jpastudy.querydsl.study.support.CommittedFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class MemberAsyncSearchServiceTest {
+
+    @Autowired
+    MemberAsyncSearchService memberAsyncSearchService;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    ApplicationContext context;
+
+    CommittedFixture fixture;
+
+    // 검색이 다른 스레드의 트랜잭션에서 돌기 때문에 데이터를 커밋해 둔다.
+    @BeforeEach
+    public void before() {
+        fixture = new CommittedFixture(context);
+        fixture.commit(() -> {
+            Team teamA = new Team(fixture.name("teamA"));
+            em.persist(teamA);
+            em.persist(new Member(fixture.name("member1"), 10, teamA));
+            em.persist(new Member(fixture.name("member2"), 20, teamA));
+        });
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    public void searchAsync() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(fixture.name("teamA"));
+
+        CompletableFuture<List<MemberTeamDto>> all = memberAsyncSearchService.search(condition);
+        Slice<MemberTeamDto> slice = memberAsyncSearchService
+            .searchSlice(condition, PageRequest.of(0, 1)).join();
+
+        assertThat(all.join()).extracting("username")
+            .containsExactlyInAnyOrder(fixture.name("member1"), fixture.name("member2"));
+        assertThat(slice.getContent()).extracting("username")
+            .containsExactly(fixture.name("member1"));
+        assertThat(slice.hasNext()).isTrue();
+    }
+}
@@ -0,0 +1,136 @@
+package jpastudy.querydsl.study.service;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jpastudy.querydsl.study.entity.BulkChangedEvent;
+import jpastudy.querydsl.study.entity.EntityChangedEvent;
+import jpastudy.querydsl.study.entity.Member;
+import jpastudy.querydsl.study.entity.MemberChangedEvent;
+import jpastudy.querydsl.study.repo.support.SqlStatementRecorder;
+import jpastudy.querydsl.study.support.CommittedFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static jpastudy.querydsl.study.entity.QMember.member;
+import static jpastudy.querydsl.study.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// chunk 마다 커밋되는지 보려면 테스트 트랜잭션에 묶이면 안 되므로 고유한 team 이름으로 커밋하고 그 데이터만 지운다.
+@SpringBootTest(properties = "member.bulk.chunk-size=100")
+@RecordApplicationEvents
+class MemberBulkLoaderTest {
+
+    @Autowired
+    MemberBulkLoader memberBulkLoader;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    ApplicationEvents events;
+
+    @Autowired
+    CommittedRows committedRows;
+
+    @Autowired
+    ApplicationContext context;
+
+    CommittedFixture fixture;
+
+    @BeforeEach
+    public void before() {
+        fixture = new CommittedFixture(context);
+        committedRows.counts.clear();
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    public void load() {
+        List<String> teamNames = List.of(fixture.name("loadTeamA"), fixture.name("loadTeamB"),
+            fixture.name("loadTeamC"));
+        memberBulkLoader.load(teamNames, 250);
+
+        List<Tuple> result = queryFactory
+            .select(team.name, member.count())
+            .from(member)
+            .join(member.team, team)
+            .where(team.name.in(teamNames))
+            .groupBy(team.name)
+            .orderBy(team.name.asc())
+            .fetch();
+
+        assertThat(result).extracting(t -> t.get(member.count()))
+            .containsExactly(84L, 83L, 83L);
+        assertThat(queryFactory.selectFrom(member)
+            .join(member.team, team)
+            .where(member.username.eq("member249"), team.name.in(teamNames))
+            .fetchOne().getAge()).isEqualTo(49);
+    }
+
+    @Test
+    public void loadPublishesOneBulkEventPerChunk() {
+        memberBulkLoader.load(List.of(fixture.name("loadTeamA")), 250);
+
+        assertThat(events.stream(MemberChangedEvent.class)).isEmpty();
+        assertThat(events.stream(EntityChangedEvent.class))
+            .allMatch(event -> !(event.getEntity() instanceof Member));
+        List<BulkChangedEvent> bulk = events.stream(BulkChangedEvent.class)
+            .collect(Collectors.toList());
+        assertThat(bulk).extracting(event -> event.getIds().size())
+            .containsExactly(100, 100, 50);
+        assertThat(bulk).allMatch(event -> event.getType() == EntityChangedEvent.Type.PERSISTED);
+        assertThat(bulk).flatExtracting(BulkChangedEvent::getIds)
+            .hasSize(250).doesNotHaveDuplicates();
+        // 커밋 뒤에 도는 소비자가 chunk 마다 호출되고, 그때 이미 그 chunk 의 행이 보인다.
+        assertThat(committedRows.counts).containsExactly(100, 100, 50);
+    }
+
+    // sequence 증가폭이 배치 크기와 같아서 insert 배치 하나에 sequence 호출 한 번이면 된다.
+    @Test
+    public void sequenceAllocatesOneBatchPerCall() {
+        try (SqlStatementRecorder.Recording recording = SqlStatementRecorder.start()) {
+            memberBulkLoader.load(List.of(fixture.name("loadTeamA")), 250);
+
+            assertThat(recording.getStatements())
+                .filteredOn(sql -> sql.toLowerCase().contains("member_seq"))
+                .hasSizeBetween(1, 3);
+        }
+    }
+
+    @TestConfiguration
+    static class CommittedRows {
+
+        private final List<Integer> counts = new CopyOnWriteArrayList<>();
+
+        @Autowired
+        NamedParameterJdbcTemplate jdbcTemplate;
+
+        @TransactionalEventListener
+        public void onBulkChanged(BulkChangedEvent event) {
+            if (event.getEntityType() == Member.class
+                && event.getType() == EntityChangedEvent.Type.PERSISTED) {
+                counts.add(jdbcTemplate.queryForObject(
+                    "select count(*) from member where member_id in (:ids)",
+                    Map.of("ids", event.getIds()), Integer.class));
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package jpastudy.querydsl.study.service;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jpastudy.querydsl.study.entity.Member;
+import jpastudy.querydsl.study.entity.Team;
+import jpastudy.querydsl.study.repo.MemberJpaRepo;
+import jpastudy.querydsl.study.support.CommittedFixture;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static jpastudy.querydsl.study.entity.QMember.member;
+import static jpastudy.querydsl.study.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "member.bulk.operation-chunk-size=3")
+class MemberBulkOperationsTest {
+
+    private static final String TEAM_MEMBERS = Team.class.getName() + ".members";
+
+    @Autowired
+    MemberBulkOperations memberBulkOperations;
+
+    @Autowired
+    MemberJpaRepo memberJpaRepo;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    ApplicationContext context;
+
+    CommittedFixture fixture;
+    Long teamAId;
+    Long teamBId;
+    List<Long> memberIds = new ArrayList<>();
+    BooleanExpression inTeamA;
+
+    // 벌크 작업은 chunk 마다 자기 트랜잭션에서 커밋하므로 데이터도 커밋해 둔다.
+    @BeforeEach
+    public void before() {
+        fixture = new CommittedFixture(context);
+        fixture.commit(() -> {
+            Team teamA = new Team(fixture.name("teamA"));
+            Team teamB = new Team(fixture.name("teamB"));
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 0; i < 10; i++) {
+                Member member = new Member(fixture.name("member" + i), i, teamA);
+                em.persist(member);
+                memberIds.add(member.getId());
+            }
+            em.persist(new Member(fixture.name("other"), 1, teamB));
+            teamAId = teamA.getId();
+            teamBId = teamB.getId();
+        });
+        inTeamA = member.team.id.eq(teamAId);
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    public void addAgeInChunks() {
+        long affected = memberBulkOperations.addAge(inTeamA.and(member.age.goe(3)), 100);
+
+        assertThat(affected).isEqualTo(7);
+        List<Integer> ages = queryFactory
+            .select(member.age)
+            .from(member)
+            .where(inTeamA)
+            .orderBy(member.id.asc())
+            .fetch();
+        assertThat(ages).containsExactly(0, 1, 2, 103, 104, 105, 106, 107, 108, 109);
+    }
+
+    @Test
+    public void deleteDetachesOnlyAffectedMembers() {
+        fixture.commit(() -> {
+            List<Member> members = queryFactory
+                .selectFrom(member)
+                .join(member.team, team).fetchJoin()
+                .where(inTeamA)
+                .orderBy(member.id.asc())
+                .fetch();
+            Team teamA = members.get(0).getTeam();
+            assertThat(teamA.getMembers()).hasSize(10);
+
+            long affected = memberBulkOperations.delete(inTeamA.and(member.age.lt(4)));
+
+            assertThat(affected).isEqualTo(4);
+            assertThat(em.contains(members.get(0))).isFalse();
+            assertThat(em.contains(members.get(3))).isFalse();
+            assertThat(em.contains(members.get(4))).isTrue();
+            assertThat(em.contains(teamA)).isTrue();
+            assertThat(teamA.getMembers()).hasSize(6);
+        });
+
+        assertThat(queryFactory.selectFrom(member).where(inTeamA).fetch()).hasSize(6);
+    }
+
+    // 벌크 쿼리가 Member 캐시 영역 전체를 비우지 않고 바뀐 회원만 뺀다.
+    @Test
+    public void evictsOnlyAffectedMembersFromSecondLevelCache() {
+        warmCache();
+
+        memberBulkOperations.addAge(inTeamA.and(member.age.lt(3)), 100);
+
+        assertThat(memberIds.subList(0, 3))
+            .noneMatch(id -> cache().containsEntity(Member.class, id));
+        assertThat(memberIds.subList(3, 10))
+            .allMatch(id -> cache().containsEntity(Member.class, id));
+        assertThat(cache().containsCollection(TEAM_MEMBERS, teamAId)).isTrue();
+        fixture.commit(() -> assertThat(em.find(Member.class, memberIds.get(0)).getAge())
+            .isEqualTo(100));
+    }
+
+    @Test
+    public void deleteEvictsOnlyAffectedTeamMembersCollection() {
+        warmCache();
+
+        memberBulkOperations.delete(inTeamA.and(member.age.lt(3)));
+
+        assertThat(cache().containsCollection(TEAM_MEMBERS, teamAId)).isFalse();
+        assertThat(cache().containsCollection(TEAM_MEMBERS, teamBId)).isTrue();
+        assertThat(memberIds.subList(3, 10))
+            .allMatch(id -> cache().containsEntity(Member.class, id));
+        fixture.commit(() -> assertThat(em.find(Team.class, teamAId).getMembers()).hasSize(7));
+        // query cache 는 member 테이블 timestamp 로 무효화된다.
+        assertThat(fixture.commit(() -> memberJpaRepo.findByUsername(fixture.name("member0"))))
+            .isEmpty();
+    }
+
+    private void warmCache() {
+        fixture.commit(() -> {
+            memberIds.forEach(id -> em.find(Member.class, id));
+            em.find(Team.class, teamAId).getMembers().size();
+            em.find(Team.class, teamBId).getMembers().size();
+            memberJpaRepo.findByUsername(fixture.name("member0"));
+        });
+        assertThat(memberIds).allMatch(id -> cache().containsEntity(Member.class, id));
+        assertThat(cache().containsCollection(TEAM_MEMBERS, teamAId)).isTrue();
+    }
+
+    private Cache cache() {
+        return emf.unwrap(SessionFactory.class).getCache();
+    }
+}
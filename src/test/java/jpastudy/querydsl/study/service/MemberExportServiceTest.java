@@ -0,0 +1,79 @@
+package jpastudy.querydsl.study.service;
+
+import jpastudy.querydsl.study.dto.MemberSearchCondition;
+import jpastudy.querydsl.study.entity.Member;
+import jpastudy.querydsl.study.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberExportServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberExportService memberExportService;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member, \"2\"", 20, teamA));
+        em.persist(new Member("member3", 30));
+    }
+
+    @Test
+    public void exportNdjson() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(15);
+
+        long count = memberExportService.export(condition, MemberExportFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(count).isEqualTo(2);
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).startsWith("{").contains("\"username\":\"member, \\\"2\\\"\"")
+            .contains("\"teamName\":\"teamA\"");
+        assertThat(lines[1]).contains("\"username\":\"member3\"").contains("\"teamName\":null");
+    }
+
+    @Test
+    public void exportCsv() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        memberExportService.export(new MemberSearchCondition(), MemberExportFormat.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(4);
+        assertThat(lines[0]).isEqualTo("memberId,username,age,teamId,teamName");
+        assertThat(lines[2]).contains(",\"member, \"\"2\"\"\",20,").endsWith(",teamA");
+        assertThat(lines[3]).endsWith(",member3,30,,");
+    }
+
+    @Test
+    public void exportCsvQuotesCarriageReturn() throws Exception {
+        em.persist(new Member("line\rbreak", 40));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("line\rbreak");
+
+        memberExportService.export(condition, MemberExportFormat.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[1]).endsWith(",\"line\rbreak\",40,,");
+    }
+}
@@ -0,0 +1,185 @@
+package jpastudy.querydsl.study.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jpastudy.querydsl.study.dto.TeamStatsDto;
+import jpastudy.querydsl.study.entity.Member;
+import jpastudy.querydsl.study.entity.Team;
+import jpastudy.querydsl.study.repo.TeamStatsRepo;
+import jpastudy.querydsl.study.support.CommittedFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+
+import javax.persistence.EntityManager;
+
+import static jpastudy.querydsl.study.entity.QMember.member;
+import static jpastudy.querydsl.study.entity.QTeamStats.teamStats;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class TeamStatsServiceTest {
+
+    @Autowired
+    TeamStatsService teamStatsService;
+
+    @Autowired
+    TeamStatsRepo teamStatsRepo;
+
+    @Autowired
+    MemberBulkOperations bulkOperations;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    ApplicationContext context;
+
+    CommittedFixture fixture;
+    Long teamAId;
+    Long teamBId;
+
+    // 커밋 직전에 반영되는 집계를 보려면 커밋해야 하므로 고유한 이름으로 커밋하고 그 데이터만 지운다.
+    @BeforeEach
+    public void before() {
+        fixture = new CommittedFixture(context);
+        fixture.commit(() -> {
+            Team teamA = new Team(fixture.name("teamA"));
+            Team teamB = new Team(fixture.name("teamB"));
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Member(fixture.name("member1"), 10, teamA));
+            em.persist(new Member(fixture.name("member2"), 20, teamA));
+            em.persist(new Member(fixture.name("member3"), 30, teamB));
+            em.persist(new Member(fixture.name("member4"), 40, teamB));
+            teamAId = teamA.getId();
+            teamBId = teamB.getId();
+        });
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    public void persistUpdatesStats() {
+        assertStats("teamA", 2, 30, 10, 20);
+        assertStats("teamB", 2, 70, 30, 40);
+        assertThat(teamStatsRepo.findAll())
+            .filteredOn(stats -> stats.getTeamName().endsWith(fixture.name("")))
+            .extracting(TeamStatsDto::getAverageAge)
+            .containsExactly(15.0, 35.0);
+    }
+
+    @Test
+    public void changeTeamMovesMember() {
+        fixture.commit(() -> {
+            Member member4 = findMember("member4");
+            member4.changeTeam(em.find(Team.class, teamAId));
+        });
+
+        assertStats("teamA", 3, 70, 10, 40);
+        assertStats("teamB", 1, 30, 30, 30);
+    }
+
+    @Test
+    public void removeRecomputesMinAndMax() {
+        fixture.commit(() -> {
+            em.remove(findMember("member1"));
+            em.remove(findMember("member4"));
+        });
+
+        assertStats("teamA", 1, 20, 20, 20);
+        assertStats("teamB", 1, 30, 30, 30);
+    }
+
+    @Test
+    public void removeLastMemberClearsRange() {
+        fixture.commit(() -> {
+            em.remove(findMember("member3"));
+            em.remove(findMember("member4"));
+        });
+
+        TeamStatsDto teamB = teamStatsRepo.findByTeamName(fixture.name("teamB")).get(0);
+        assertThat(teamB.getMemberCount()).isZero();
+        assertThat(teamB.getMinAge()).isNull();
+        assertThat(teamB.getAverageAge()).isNull();
+    }
+
+    @Test
+    public void rollbackLeavesStats() {
+        fixture.rollback(() ->
+            em.persist(new Member(fixture.name("member5"), 50, em.find(Team.class, teamAId))));
+
+        assertStats("teamA", 2, 30, 10, 20);
+    }
+
+    @Test
+    public void reconcileRebuildsAfterBulkChange() {
+        bulkOperations.delete(member.team.id.eq(teamBId).and(member.age.gt(35)));
+        assertStats("teamB", 2, 70, 30, 40);
+
+        teamStatsService.reconcileIfDirty();
+
+        assertStats("teamB", 1, 30, 30, 30);
+        assertStats("teamA", 2, 30, 10, 20);
+    }
+
+    @Test
+    public void reconcileFixesDrift() {
+        fixture.commit(() -> queryFactory
+            .update(teamStats)
+            .set(teamStats.memberCount, 100L)
+            .where(teamStats.teamId.eq(teamAId))
+            .execute());
+
+        teamStatsService.reconcile();
+
+        assertStats("teamA", 2, 30, 10, 20);
+    }
+
+    @Test
+    public void missingRowIsRebuiltFromMembers() {
+        fixture.commit(() -> queryFactory
+            .delete(teamStats)
+            .where(teamStats.teamId.eq(teamAId))
+            .execute());
+
+        fixture.commit(() ->
+            em.persist(new Member(fixture.name("member5"), 50, em.find(Team.class, teamAId))));
+
+        assertStats("teamA", 3, 80, 10, 50);
+    }
+
+    @Test
+    public void reconcileSumsAgesAsLong() {
+        fixture.commit(() -> {
+            Team found = em.find(Team.class, teamAId);
+            em.persist(new Member(fixture.name("old1"), Integer.MAX_VALUE, found));
+            em.persist(new Member(fixture.name("old2"), Integer.MAX_VALUE, found));
+        });
+
+        teamStatsService.reconcile();
+
+        assertStats("teamA", 4, 30 + 2L * Integer.MAX_VALUE, 10, Integer.MAX_VALUE);
+    }
+
+    private Member findMember(String username) {
+        return queryFactory.selectFrom(member)
+            .where(member.username.eq(fixture.name(username))).fetchOne();
+    }
+
+    private void assertStats(String teamName, long count, long ageSum, int minAge, int maxAge) {
+        TeamStatsDto stats = teamStatsRepo.findByTeamName(fixture.name(teamName)).get(0);
+        assertThat(stats.getMemberCount()).isEqualTo(count);
+        assertThat(stats.getAgeSum()).isEqualTo(ageSum);
+        assertThat(stats.getMinAge()).isEqualTo(minAge);
+        assertThat(stats.getMaxAge()).isEqualTo(maxAge);
+    }
+}
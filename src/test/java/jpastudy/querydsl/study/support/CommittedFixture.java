@@ -0,0 +1,83 @@
+package jpastudy.querydsl.study.support;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.StringExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jpastudy.querydsl.study.entity.BulkChangedEvent;
+import jpastudy.querydsl.study.entity.EntityChangedEvent;
+import jpastudy.querydsl.study.entity.Member;
+import org.springframework.context.ApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static jpastudy.querydsl.study.entity.QMember.member;
+import static jpastudy.querydsl.study.entity.QTeam.team;
+import static jpastudy.querydsl.study.entity.QTeamStats.teamStats;
+
+// 다른 트랜잭션이나 스레드에서 읽어야 해서 롤백되는 @Transactional 테스트로는 안 되는 데이터를 커밋한다.
+// 다른 테스트가 커밋한 데이터와 섞이지 않게 이름마다 고유한 접미사를 붙이고, 정리할 때는 그 이름의 데이터만 지운다.
+public class CommittedFixture {
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    private final JPAQueryFactory queryFactory;
+    private final ApplicationContext context;
+    private final TransactionTemplate transactionTemplate;
+    private final String suffix = "@" + SEQUENCE.incrementAndGet();
+
+    public CommittedFixture(ApplicationContext context) {
+        this.context = context;
+        this.queryFactory = context.getBean(JPAQueryFactory.class);
+        this.transactionTemplate = new TransactionTemplate(
+            context.getBean(PlatformTransactionManager.class));
+    }
+
+    public String name(String base) {
+        return base + suffix;
+    }
+
+    // 이 fixture 가 만든 이름만 고른다.
+    public BooleanExpression owns(StringExpression name) {
+        return name.endsWith(suffix);
+    }
+
+    public void commit(Runnable work) {
+        transactionTemplate.executeWithoutResult(status -> work.run());
+    }
+
+    public <T> T commit(Supplier<T> work) {
+        return transactionTemplate.execute(status -> work.get());
+    }
+
+    public void rollback(Runnable work) {
+        transactionTemplate.executeWithoutResult(status -> {
+            work.run();
+            status.setRollbackOnly();
+        });
+    }
+
+    // 색인과 캐시가 지워진 행을 들고 있지 않도록 벌크 삭제처럼 BulkChangedEvent 로 알린다.
+    public void cleanUp() {
+        commit(() -> {
+            List<Long> teamIds = queryFactory
+                .select(team.id)
+                .from(team)
+                .where(team.name.endsWith(suffix))
+                .fetch();
+            List<Long> memberIds = queryFactory
+                .select(member.id)
+                .from(member)
+                .where(member.username.endsWith(suffix).or(member.team.id.in(teamIds)))
+                .fetch();
+            queryFactory.delete(member).where(member.id.in(memberIds)).execute();
+            queryFactory.delete(teamStats).where(teamStats.teamId.in(teamIds)).execute();
+            queryFactory.delete(team).where(team.id.in(teamIds)).execute();
+            context.publishEvent(new BulkChangedEvent(Member.class, memberIds,
+                EntityChangedEvent.Type.REMOVED));
+        });
+    }
+}